@@ -37,10 +37,49 @@ public @interface AlfrescoTransaction {
 	boolean readOnly() default false;
 
 	/**
-	 * The transaction propagation type.
+	 * The transaction propagation type. {@link Propagation#NOT_SUPPORTED} within
+	 * an existing transaction needs the <code>transactionManager</code> bean to
+	 * suspend it and fails otherwise.
 	 * <p>
 	 * Defaults to {@link Propagation#REQUIRED}.
 	 */
 	Propagation propagation() default Propagation.REQUIRED;
 
+	/**
+	 * The maximum number of retries when the transaction fails with a retryable
+	 * exception, <code>0</code> disables the retries.
+	 * <p>
+	 * Defaults to <code>-1</code>, the repository configuration.
+	 */
+	int maxRetries() default -1;
+
+	/**
+	 * The initial wait before a retry, in milliseconds. The actual wait is a
+	 * random value up to the current wait so that concurrent retries do not
+	 * collide again.
+	 * <p>
+	 * Defaults to <code>-1</code>, the repository configuration.
+	 */
+	int minRetryWaitMs() default -1;
+
+	/**
+	 * The increase of the wait after each retry, in milliseconds.
+	 * <p>
+	 * Defaults to <code>-1</code>, the repository configuration.
+	 */
+	int retryWaitIncrementMs() default -1;
+
+	/**
+	 * The maximum wait before a retry, in milliseconds.
+	 * <p>
+	 * Defaults to <code>-1</code>, the repository configuration.
+	 */
+	int maxRetryWaitMs() default -1;
+
+	/**
+	 * Additional exceptions causing the transaction to be retried.
+	 * <p>
+	 * Defaults to none, only the repository retryable exceptions.
+	 */
+	Class<? extends Throwable>[] extraExceptions() default {};
 }
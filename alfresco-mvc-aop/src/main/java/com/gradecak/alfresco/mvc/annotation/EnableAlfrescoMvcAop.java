@@ -43,4 +43,23 @@ public @interface EnableAlfrescoMvcAop {
 	String[] basePackages() default {};
 
 	Class<?>[] basePackageClasses() default {};
+
+	/**
+	 * <code>true</code> to apply the authentication, runAs and transaction
+	 * handling through a single interceptor executing a plan resolved once per
+	 * method, instead of three separate advisors. Methods without any Alfresco
+	 * annotation are not intercepted at all. All the annotations of a context
+	 * must use the same mode.
+	 * <p>
+	 * Defaults to <code>false</code>.
+	 */
+	boolean fused() default false;
+
+	/**
+	 * <code>true</code> if the classes of the subpackages of the base packages
+	 * are proxied too.
+	 * <p>
+	 * Defaults to <code>false</code>.
+	 */
+	boolean includeSubpackages() default false;
 }
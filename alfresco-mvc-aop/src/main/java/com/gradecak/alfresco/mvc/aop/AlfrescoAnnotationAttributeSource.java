@@ -0,0 +1,187 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.gradecak.alfresco.mvc.annotation.AlfrescoAuthentication;
+import com.gradecak.alfresco.mvc.annotation.AlfrescoRunAs;
+import com.gradecak.alfresco.mvc.annotation.AlfrescoTransaction;
+
+/**
+ * resolves the {@link AlfrescoAuthentication}, {@link AlfrescoRunAs} and
+ * {@link AlfrescoTransaction} annotations of a method once per method and
+ * target class. The annotations might be declared directly or as
+ * meta-annotations, on the method or on the class in which case they apply to
+ * all the public methods of the class. A method level annotation always takes
+ * precedence over the class level one.
+ */
+public class AlfrescoAnnotationAttributeSource {
+
+	private static final MethodAttributes NO_ATTRIBUTES = new MethodAttributes(null, null, null);
+	private static final List<Class<? extends Annotation>> ANNOTATION_TYPES = List.of(AlfrescoAuthentication.class,
+			AlfrescoRunAs.class, AlfrescoTransaction.class);
+
+	private final Map<MethodClassKey, MethodAttributes> attributesCache = new ConcurrentHashMap<>(1024);
+
+	public MethodAttributes getAttributes(final Method method, final Class<?> targetClass) {
+		if (method.getDeclaringClass() == Object.class) {
+			return NO_ATTRIBUTES;
+		}
+
+		MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+		MethodAttributes attributes = attributesCache.get(cacheKey);
+		if (attributes == null) {
+			attributes = computeAttributes(method, targetClass);
+			attributesCache.put(cacheKey, attributes);
+		}
+		return attributes;
+	}
+
+	/**
+	 * <code>true</code> if any of the Alfresco annotations is declared, directly
+	 * or as a meta-annotation, on the class, its interfaces or any of their
+	 * methods
+	 */
+	public static boolean hasAlfrescoAnnotations(final Class<?> clazz) {
+		Class<?> userClass = ClassUtils.getUserClass(clazz);
+
+		Set<Class<?>> candidates = new LinkedHashSet<>();
+		candidates.add(userClass);
+		candidates.addAll(ClassUtils.getAllInterfacesForClassAsSet(userClass));
+
+		for (Class<?> candidate : candidates) {
+			if (isAnnotated(candidate)) {
+				return true;
+			}
+			for (Method method : ReflectionUtils.getAllDeclaredMethods(candidate)) {
+				if (method.getDeclaringClass() != Object.class && isAnnotated(method)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isAnnotated(final AnnotatedElement ae) {
+		for (Class<? extends Annotation> annotationType : ANNOTATION_TYPES) {
+			if (AnnotatedElementUtils.hasAnnotation(ae, annotationType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private MethodAttributes computeAttributes(final Method method, final Class<?> targetClass) {
+		Class<?> userClass = targetClass != null ? ClassUtils.getUserClass(targetClass) : null;
+
+		Method specificMethod = ClassUtils.getMostSpecificMethod(method, userClass);
+		// If we are dealing with method with generic parameters, find the original
+		// method.
+		specificMethod = BridgeMethodResolver.findBridgedMethod(specificMethod);
+
+		AlfrescoAuthentication authentication = findAnnotation(method, specificMethod, userClass,
+				AlfrescoAuthentication.class);
+		AlfrescoRunAs runAs = findAnnotation(method, specificMethod, userClass, AlfrescoRunAs.class);
+		AlfrescoTransaction transaction = findAnnotation(method, specificMethod, userClass, AlfrescoTransaction.class);
+
+		if (authentication == null && runAs == null && transaction == null) {
+			return NO_ATTRIBUTES;
+		}
+		return new MethodAttributes(authentication, runAs, transaction);
+	}
+
+	private <A extends Annotation> A findAnnotation(final Method method, final Method specificMethod,
+			final Class<?> targetClass, final Class<A> annotationType) {
+		A ann = getAnnotation(specificMethod, annotationType);
+		if (ann == null && specificMethod != method) {
+			ann = getAnnotation(method, annotationType);
+		}
+
+		if (ann == null && Modifier.isPublic(specificMethod.getModifiers())) {
+			ann = getAnnotation(targetClass != null ? targetClass : specificMethod.getDeclaringClass(), annotationType);
+			if (ann == null && method.getDeclaringClass() != targetClass) {
+				ann = getAnnotation(method.getDeclaringClass(), annotationType);
+			}
+		}
+
+		return ann;
+	}
+
+	private <A extends Annotation> A getAnnotation(final AnnotatedElement ae, final Class<A> annotationType) {
+		return AnnotatedElementUtils.getMergedAnnotation(ae, annotationType);
+	}
+
+	/**
+	 * the Alfresco annotations applying to a method, <code>null</code> when not
+	 * present
+	 */
+	public static final class MethodAttributes {
+
+		private final AlfrescoAuthentication authentication;
+		private final AlfrescoRunAs runAs;
+		private final AlfrescoTransaction transaction;
+
+		MethodAttributes(final AlfrescoAuthentication authentication, final AlfrescoRunAs runAs,
+				final AlfrescoTransaction transaction) {
+			this.authentication = authentication;
+			this.runAs = runAs;
+			this.transaction = transaction;
+		}
+
+		public AlfrescoAuthentication getAuthentication() {
+			return authentication;
+		}
+
+		public AlfrescoRunAs getRunAs() {
+			return runAs;
+		}
+
+		public AlfrescoTransaction getTransaction() {
+			return transaction;
+		}
+
+		public boolean hasAttribute(final Class<? extends Annotation> annotationType) {
+			if (AlfrescoAuthentication.class == annotationType) {
+				return authentication != null;
+			} else if (AlfrescoRunAs.class == annotationType) {
+				return runAs != null;
+			} else if (AlfrescoTransaction.class == annotationType) {
+				return transaction != null;
+			}
+			return false;
+		}
+
+		public boolean isEmpty() {
+			return authentication == null && runAs == null && transaction == null;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * a pointcut matching the methods on which the given Alfresco annotation, or
+ * any of them if no annotation type is given, applies either declared on the
+ * method or on its class, as resolved by the shared
+ * {@link AlfrescoAnnotationAttributeSource}
+ */
+public class AlfrescoAnnotationPointcut extends StaticMethodMatcherPointcut {
+
+	private final AlfrescoAnnotationAttributeSource attributeSource;
+	private final Class<? extends Annotation> annotationType;
+
+	public AlfrescoAnnotationPointcut(final AlfrescoAnnotationAttributeSource attributeSource) {
+		Assert.notNull(attributeSource, "attributeSource must not be null!");
+		this.attributeSource = attributeSource;
+		this.annotationType = null;
+	}
+
+	public AlfrescoAnnotationPointcut(final AlfrescoAnnotationAttributeSource attributeSource,
+			final Class<? extends Annotation> annotationType) {
+		Assert.notNull(attributeSource, "attributeSource must not be null!");
+		Assert.notNull(annotationType, "annotationType must not be null!");
+		this.attributeSource = attributeSource;
+		this.annotationType = annotationType;
+	}
+
+	public boolean matches(final Method method, final Class<?> targetClass) {
+		AlfrescoAnnotationAttributeSource.MethodAttributes attributes = attributeSource.getAttributes(method,
+				targetClass);
+		return annotationType != null ? attributes.hasAttribute(annotationType) : !attributes.isEmpty();
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof AlfrescoAnnotationPointcut)) {
+			return false;
+		}
+		AlfrescoAnnotationPointcut otherPointcut = (AlfrescoAnnotationPointcut) other;
+		return attributeSource.equals(otherPointcut.attributeSource)
+				&& ObjectUtils.nullSafeEquals(annotationType, otherPointcut.annotationType);
+	}
+
+	@Override
+	public int hashCode() {
+		return ObjectUtils.nullSafeHashCode(annotationType);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getName() + ": " + (annotationType != null ? annotationType.getName() : "any");
+	}
+}
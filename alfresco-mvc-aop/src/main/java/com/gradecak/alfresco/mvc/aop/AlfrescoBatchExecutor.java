@@ -0,0 +1,141 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.ServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * processes large inputs in chunks, each chunk in its own retrying transaction
+ * on a bounded pool of workers. The workers run with the identity of the
+ * caller, see {@link AlfrescoSecurityContext}. The input is read by the caller
+ * as the workers make progress so that it might be a lazy {@link Iterable}; when
+ * all the workers are busy and the queue is full, the caller processes the
+ * chunk itself.
+ * <p>
+ * A failed chunk is rolled back and reported in the {@link AlfrescoBatchResult}
+ * without stopping the other chunks.
+ */
+public class AlfrescoBatchExecutor implements DisposableBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AlfrescoBatchExecutor.class);
+
+	@FunctionalInterface
+	public interface ChunkProcessor<T> {
+
+		void process(List<T> chunk) throws Throwable;
+	}
+
+	private final ServiceRegistry serviceRegistry;
+	private final ThreadPoolExecutor executor;
+
+	public AlfrescoBatchExecutor(final ServiceRegistry serviceRegistry, final int threads, final int queueCapacity) {
+		Assert.notNull(serviceRegistry, "serviceRegistry must not be null!");
+		this.serviceRegistry = serviceRegistry;
+		this.executor = BoundedExecutors.callerRuns(threads, queueCapacity, "alfresco-mvc-batch-");
+	}
+
+	/**
+	 * processes the items in read-write transactions
+	 */
+	public <T> AlfrescoBatchResult process(final Iterable<T> items, final int chunkSize,
+			final ChunkProcessor<T> processor) {
+		return process(items, chunkSize, false, processor);
+	}
+
+	public <T> AlfrescoBatchResult process(final Iterable<T> items, final int chunkSize, final boolean readOnly,
+			final ChunkProcessor<T> processor) {
+		Assert.notNull(items, "items must not be null!");
+		Assert.isTrue(chunkSize > 0, "chunkSize must be positive!");
+		Assert.notNull(processor, "processor must not be null!");
+
+		AlfrescoSecurityContext securityContext = AlfrescoSecurityContext.capture();
+
+		List<Future<AlfrescoBatchResult.ChunkResult>> futures = new ArrayList<>();
+		Iterator<T> iterator = items.iterator();
+		int index = 0;
+		while (iterator.hasNext()) {
+			List<T> chunk = new ArrayList<>(chunkSize);
+			while (chunk.size() < chunkSize && iterator.hasNext()) {
+				chunk.add(iterator.next());
+			}
+
+			final int chunkIndex = index++;
+			futures.add(executor
+					.submit(() -> processChunk(chunkIndex, chunk, readOnly, processor, securityContext)));
+		}
+
+		List<AlfrescoBatchResult.ChunkResult> results = new ArrayList<>(futures.size());
+		for (Future<AlfrescoBatchResult.ChunkResult> future : futures) {
+			results.add(waitFor(future, futures));
+		}
+
+		AlfrescoBatchResult result = new AlfrescoBatchResult(results);
+		LOGGER.debug("batch processed: {}", result);
+		return result;
+	}
+
+	private <T> AlfrescoBatchResult.ChunkResult processChunk(final int index, final List<T> chunk,
+			final boolean readOnly, final ChunkProcessor<T> processor, final AlfrescoSecurityContext securityContext) {
+		long start = System.nanoTime();
+		try {
+			securityContext.runWith(() -> {
+				RetryingTransactionCallback<Void> work = () -> {
+					processor.process(chunk);
+					return null;
+				};
+				// always a new transaction, the chunk might be run by the caller
+				return serviceRegistry.getRetryingTransactionHelper().doInTransaction(work, readOnly, true);
+			});
+			return new AlfrescoBatchResult.ChunkResult(index, chunk.size(), System.nanoTime() - start, null);
+		} catch (Throwable e) {
+			LOGGER.warn("batch chunk " + index + " failed", e);
+			return new AlfrescoBatchResult.ChunkResult(index, chunk.size(), System.nanoTime() - start, e);
+		}
+	}
+
+	private AlfrescoBatchResult.ChunkResult waitFor(final Future<AlfrescoBatchResult.ChunkResult> future,
+			final List<Future<AlfrescoBatchResult.ChunkResult>> futures) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			for (Future<AlfrescoBatchResult.ChunkResult> pending : futures) {
+				pending.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for the batch to complete", e);
+		} catch (ExecutionException e) {
+			// processChunk does not throw
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	public void destroy() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the outcome of an {@link AlfrescoBatchExecutor} run, one entry per chunk in
+ * the order of the input
+ */
+public class AlfrescoBatchResult {
+
+	private final List<ChunkResult> chunks;
+
+	AlfrescoBatchResult(final List<ChunkResult> chunks) {
+		this.chunks = Collections.unmodifiableList(chunks);
+	}
+
+	public List<ChunkResult> getChunks() {
+		return chunks;
+	}
+
+	public List<ChunkResult> getFailedChunks() {
+		List<ChunkResult> failedChunks = new ArrayList<>();
+		for (ChunkResult chunk : chunks) {
+			if (!chunk.isSuccessful()) {
+				failedChunks.add(chunk);
+			}
+		}
+		return failedChunks;
+	}
+
+	public boolean isSuccessful() {
+		for (ChunkResult chunk : chunks) {
+			if (!chunk.isSuccessful()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int getProcessedCount() {
+		int count = 0;
+		for (ChunkResult chunk : chunks) {
+			if (chunk.isSuccessful()) {
+				count += chunk.getSize();
+			}
+		}
+		return count;
+	}
+
+	public int getFailedCount() {
+		int count = 0;
+		for (ChunkResult chunk : chunks) {
+			if (!chunk.isSuccessful()) {
+				count += chunk.getSize();
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return "chunks=" + chunks.size() + ", processed=" + getProcessedCount() + ", failed=" + getFailedCount();
+	}
+
+	public static class ChunkResult {
+
+		private final int index;
+		private final int size;
+		private final long durationNanos;
+		private final Throwable failure;
+
+		ChunkResult(final int index, final int size, final long durationNanos, final Throwable failure) {
+			this.index = index;
+			this.size = size;
+			this.durationNanos = durationNanos;
+			this.failure = failure;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public long getDuration(final TimeUnit unit) {
+			return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * @return the cause of the rollback of the chunk, <code>null</code> if it
+		 *         has been committed
+		 */
+		public Throwable getFailure() {
+			return failure;
+		}
+
+		public boolean isSuccessful() {
+			return failure == null;
+		}
+
+		@Override
+		public String toString() {
+			return "chunk " + index + " (" + size + " items, " + getDuration(TimeUnit.MILLISECONDS) + " ms"
+					+ (failure != null ? ", failed: " + failure.getMessage() : "") + ")";
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.MethodClassKey;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import com.gradecak.alfresco.mvc.annotation.AlfrescoAuthentication;
+import com.gradecak.alfresco.mvc.annotation.AlfrescoRunAs;
+import com.gradecak.alfresco.mvc.annotation.AuthenticationType;
+
+/**
+ * a single interceptor applying the {@link AuthenticationAdvice},
+ * {@link RunAsAdvice} and {@link TransactionalAdvice} logic. The steps to run
+ * are resolved once per method and target class and sorted by the configured
+ * advisor orders, so that an advised call goes through one interceptor instead
+ * of three. Enabled with
+ * {@link com.gradecak.alfresco.mvc.annotation.EnableAlfrescoMvcAop#fused()}.
+ */
+public class AlfrescoFusedAdvice implements MethodInterceptor {
+
+	private static final Step[] NO_STEPS = new Step[0];
+
+	private final AlfrescoAnnotationAttributeSource attributeSource;
+	private final AuthenticationAdvice authenticationAdvice;
+	private final RunAsAdvice runAsAdvice;
+	private final TransactionalAdvice transactionalAdvice;
+	private final int authenticationOrder;
+	private final int runAsOrder;
+	private final int transactionOrder;
+
+	private final Map<MethodClassKey, ExecutionPlan> planCache = new ConcurrentHashMap<>(1024);
+
+	public AlfrescoFusedAdvice(final AlfrescoAnnotationAttributeSource attributeSource,
+			final AuthenticationAdvice authenticationAdvice, final RunAsAdvice runAsAdvice,
+			final TransactionalAdvice transactionalAdvice, final int authenticationOrder, final int runAsOrder,
+			final int transactionOrder) {
+		Assert.notNull(attributeSource, "attributeSource must not be null!");
+		Assert.notNull(authenticationAdvice, "authenticationAdvice must not be null!");
+		Assert.notNull(runAsAdvice, "runAsAdvice must not be null!");
+		Assert.notNull(transactionalAdvice, "transactionalAdvice must not be null!");
+		this.attributeSource = attributeSource;
+		this.authenticationAdvice = authenticationAdvice;
+		this.runAsAdvice = runAsAdvice;
+		this.transactionalAdvice = transactionalAdvice;
+		this.authenticationOrder = authenticationOrder;
+		this.runAsOrder = runAsOrder;
+		this.transactionOrder = transactionOrder;
+	}
+
+	public Object invoke(final MethodInvocation invocation) throws Throwable {
+		Class<?> targetClass = invocation.getThis() != null ? invocation.getThis().getClass() : null;
+
+		ExecutionPlan plan = getExecutionPlan(invocation.getMethod(), targetClass);
+		if (plan.steps.length == 0) {
+			return invocation.proceed();
+		}
+
+		return proceed(invocation, plan, 0);
+	}
+
+	private Object proceed(final MethodInvocation invocation, final ExecutionPlan plan, final int index)
+			throws Throwable {
+		if (index == plan.steps.length) {
+			return invocation.proceed();
+		}
+
+		switch (plan.steps[index]) {
+		case AUTHENTICATION:
+			authenticationAdvice.checkAuthentication(plan.attributes.getAuthentication());
+			return proceed(invocation, plan, index + 1);
+		case RUN_AS:
+			return runAsAdvice.runAs(plan.attributes.getRunAs().value(), () -> proceed(invocation, plan, index + 1));
+		case TRANSACTION:
+			return transactionalAdvice.doInTransaction(invocation.getMethod(), plan.attributes.getTransaction(),
+					() -> proceed(invocation, plan, index + 1));
+		default:
+			throw new IllegalStateException("Unknown Alfresco advice step: " + plan.steps[index]);
+		}
+	}
+
+	private ExecutionPlan getExecutionPlan(final Method method, final Class<?> targetClass) {
+		MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+		ExecutionPlan plan = planCache.get(cacheKey);
+		if (plan == null) {
+			plan = buildExecutionPlan(attributeSource.getAttributes(method, targetClass));
+			planCache.put(cacheKey, plan);
+		}
+		return plan;
+	}
+
+	private ExecutionPlan buildExecutionPlan(final AlfrescoAnnotationAttributeSource.MethodAttributes attributes) {
+		List<Step> steps = new ArrayList<>(Step.values().length);
+
+		AlfrescoAuthentication authentication = attributes.getAuthentication();
+		if (authentication != null && authentication.value() != null
+				&& !AuthenticationType.NONE.equals(authentication.value())) {
+			steps.add(Step.AUTHENTICATION);
+		}
+
+		AlfrescoRunAs runAs = attributes.getRunAs();
+		if (runAs != null && StringUtils.hasText(runAs.value())) {
+			steps.add(Step.RUN_AS);
+		}
+
+		if (attributes.getTransaction() != null) {
+			steps.add(Step.TRANSACTION);
+		}
+
+		// same ordering as the separate advisors, the lowest order runs first
+		steps.sort(Comparator.comparingInt(this::getOrder));
+
+		return new ExecutionPlan(attributes, steps.toArray(NO_STEPS));
+	}
+
+	private int getOrder(final Step step) {
+		switch (step) {
+		case AUTHENTICATION:
+			return authenticationOrder;
+		case RUN_AS:
+			return runAsOrder;
+		default:
+			return transactionOrder;
+		}
+	}
+
+	private enum Step {
+		AUTHENTICATION, RUN_AS, TRANSACTION
+	}
+
+	private static final class ExecutionPlan {
+
+		private final AlfrescoAnnotationAttributeSource.MethodAttributes attributes;
+		private final Step[] steps;
+
+		private ExecutionPlan(final AlfrescoAnnotationAttributeSource.MethodAttributes attributes, final Step[] steps) {
+			this.attributes = attributes;
+			this.steps = steps;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.ServiceRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * runs independent repository reads in parallel on a bounded pool of workers,
+ * each of them in its own read-only retrying transaction and with the identity
+ * of the caller, see {@link AlfrescoSecurityContext}. The latency of the
+ * composed reads is the one of the slowest read instead of their sum.
+ * <p>
+ * When all the workers are busy and the queue is full, the caller runs the read
+ * itself, such a read is not interrupted on timeout.
+ */
+public class AlfrescoParallel implements DisposableBean {
+
+	private final ServiceRegistry serviceRegistry;
+	private final ThreadPoolExecutor executor;
+
+	public AlfrescoParallel(final ServiceRegistry serviceRegistry, final int threads, final int queueCapacity) {
+		Assert.notNull(serviceRegistry, "serviceRegistry must not be null!");
+		this.serviceRegistry = serviceRegistry;
+		this.executor = BoundedExecutors.callerRuns(threads, queueCapacity, "alfresco-mvc-parallel-");
+	}
+
+	/**
+	 * runs the reads and waits for all of them. The pending reads are cancelled as
+	 * soon as one of them fails or the timeout elapses.
+	 * 
+	 * @return the results in the order of the reads
+	 * @throws TimeoutException if the reads did not complete within the timeout
+	 */
+	public <T> List<T> invokeAll(final List<? extends RetryingTransactionCallback<? extends T>> reads,
+			final long timeout, final TimeUnit unit) throws TimeoutException {
+		Assert.notNull(reads, "reads must not be null!");
+		Assert.notNull(unit, "unit must not be null!");
+
+		AlfrescoSecurityContext securityContext = AlfrescoSecurityContext.capture();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		List<Future<? extends T>> futures = new ArrayList<>(reads.size());
+		try {
+			for (RetryingTransactionCallback<? extends T> read : reads) {
+				Assert.notNull(read, "read must not be null!");
+				futures.add(executor.submit(() -> securityContext.runWith(() -> serviceRegistry
+						.getRetryingTransactionHelper().doInTransaction(read, true, true))));
+			}
+
+			List<T> results = new ArrayList<>(futures.size());
+			for (Future<? extends T> future : futures) {
+				results.add(waitFor(future, deadline));
+			}
+			return results;
+		} finally {
+			// no-op for the completed reads
+			for (Future<? extends T> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private <T> T waitFor(final Future<T> future, final long deadline) throws TimeoutException {
+		try {
+			return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for the parallel reads to complete");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	public void destroy() {
+		executor.shutdown();
+	}
+}
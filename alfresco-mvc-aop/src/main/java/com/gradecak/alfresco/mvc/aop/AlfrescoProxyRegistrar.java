@@ -17,8 +17,10 @@
 package com.gradecak.alfresco.mvc.aop;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -70,10 +72,15 @@ public class AlfrescoProxyRegistrar implements ImportBeanDefinitionRegistrar {
 				annotationMetadata.getAnnotationAttributes(EnableAlfrescoMvcAop.class.getName()));
 		this.metadata = annotationMetadata;
 
-		Iterable<String> basePackages = getBasePackages();
-		for (String basePackage : basePackages) {
-			registerOrEscalateApcAsRequired(PackageAutoProxyCreator.class, registry, null, basePackage);
+		boolean fused = attributes.getBoolean("fused");
+		boolean includeSubpackages = attributes.getBoolean("includeSubpackages");
+
+		Set<String> basePackages = new LinkedHashSet<>();
+		for (String basePackage : getBasePackages()) {
+			basePackages.add(
+					includeSubpackages ? basePackage + PackageAutoProxyCreator.SUBPACKAGES_SUFFIX : basePackage);
 		}
+		registerOrEscalateApcAsRequired(PackageAutoProxyCreator.class, registry, null, basePackages, fused);
 
 		// if (!registry.containsBeanDefinition(AUTOWIRED_PROCESSOR_BEAN_NAME)) {
 		// RootBeanDefinition beanDefinition = new
@@ -117,19 +124,49 @@ public class AlfrescoProxyRegistrar implements ImportBeanDefinitionRegistrar {
 
 	public static BeanDefinition registerOrEscalateApcAsRequired(Class<PackageAutoProxyCreator> cls,
 			BeanDefinitionRegistry registry, Object source, String basePackage) {
+		return registerOrEscalateApcAsRequired(cls, registry, source, Collections.singleton(basePackage), false);
+	}
+
+	/**
+	 * registers a single proxy creator holding all the base packages configured
+	 * through the {@link EnableAlfrescoMvcAop} annotations. The annotations of a
+	 * context must agree on the fused mode, a package would be proxied twice
+	 * otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public static BeanDefinition registerOrEscalateApcAsRequired(Class<PackageAutoProxyCreator> cls,
+			BeanDefinitionRegistry registry, Object source, Collection<String> basePackages, boolean fused) {
 		Assert.notNull(registry, "BeanDefinitionRegistry must not be null");
 
-		String proxyPackageBeanName = PACKAGE_PROXY_CREATOR_BEAN_NAME + "." + basePackage;
-		if (registry.containsBeanDefinition(proxyPackageBeanName)) {
-			return null;
+		BeanDefinition beanDefinition;
+		if (registry.containsBeanDefinition(PACKAGE_PROXY_CREATOR_BEAN_NAME)) {
+			beanDefinition = registry.getBeanDefinition(PACKAGE_PROXY_CREATOR_BEAN_NAME);
+			Object registeredFused = beanDefinition.getPropertyValues().get("fused");
+			if (!Boolean.valueOf(fused).equals(registeredFused != null ? registeredFused : Boolean.FALSE)) {
+				throw new IllegalStateException("@EnableAlfrescoMvcAop(fused = " + fused
+						+ ") cannot be combined with @EnableAlfrescoMvcAop(fused = " + !fused
+						+ ") in the same context, the packages " + basePackages + " would be proxied twice");
+			}
+		} else {
+			RootBeanDefinition rootBeanDefinition = new RootBeanDefinition(cls);
+			rootBeanDefinition.setSource(source);
+			rootBeanDefinition.getPropertyValues().add("order", Ordered.HIGHEST_PRECEDENCE);
+			rootBeanDefinition.getPropertyValues().add("fused", fused);
+			rootBeanDefinition.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+			registry.registerBeanDefinition(PACKAGE_PROXY_CREATOR_BEAN_NAME, rootBeanDefinition);
+			beanDefinition = rootBeanDefinition;
+		}
+
+		Object registeredPackages = beanDefinition.getPropertyValues().get("basePackages");
+		Set<String> packages;
+		if (registeredPackages instanceof Set) {
+			packages = (Set<String>) registeredPackages;
+		} else {
+			packages = new LinkedHashSet<>();
+			beanDefinition.getPropertyValues().add("basePackages", packages);
 		}
+		packages.addAll(basePackages);
 
-		RootBeanDefinition beanDefinition = new RootBeanDefinition(cls);
-		beanDefinition.setSource(source);
-		beanDefinition.getPropertyValues().add("order", Ordered.HIGHEST_PRECEDENCE);
-		beanDefinition.getPropertyValues().add("basePackage", basePackage);
-		beanDefinition.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
-		registry.registerBeanDefinition(proxyPackageBeanName, beanDefinition);
 		return beanDefinition;
 	}
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.util.Locale;
+
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
+import org.springframework.extensions.surf.util.I18NUtil;
+
+/**
+ * a snapshot of the Alfresco identity of the current thread, the fully
+ * authenticated user, the runAs user and the locale, to be applied on another
+ * thread. The tenant follows as it is derived from the user names.
+ */
+public final class AlfrescoSecurityContext {
+
+	private final String fullyAuthenticatedUser;
+	private final String runAsUser;
+	private final Locale locale;
+
+	private AlfrescoSecurityContext(final String fullyAuthenticatedUser, final String runAsUser,
+			final Locale locale) {
+		this.fullyAuthenticatedUser = fullyAuthenticatedUser;
+		this.runAsUser = runAsUser;
+		this.locale = locale;
+	}
+
+	public static AlfrescoSecurityContext capture() {
+		return new AlfrescoSecurityContext(AuthenticationUtil.getFullyAuthenticatedUser(),
+				AuthenticationUtil.getRunAsUser(), I18NUtil.getLocale());
+	}
+
+	/**
+	 * runs the work with the captured identity and restores the identity of the
+	 * current thread afterwards, it might therefore be the capturing thread itself
+	 */
+	public <T> T runWith(final RunAsWork<T> work) throws Exception {
+		Locale previousLocale = I18NUtil.getLocale();
+		AuthenticationUtil.pushAuthentication();
+		try {
+			if (fullyAuthenticatedUser != null) {
+				AuthenticationUtil.setFullyAuthenticatedUser(fullyAuthenticatedUser);
+				if (runAsUser != null && !runAsUser.equals(fullyAuthenticatedUser)) {
+					AuthenticationUtil.setRunAsUser(runAsUser);
+				}
+			} else if (runAsUser != null) {
+				AuthenticationUtil.setRunAsUser(runAsUser);
+			} else {
+				AuthenticationUtil.clearCurrentSecurityContext();
+			}
+			I18NUtil.setLocale(locale);
+
+			return work.doWork();
+		} finally {
+			I18NUtil.setLocale(previousLocale);
+			AuthenticationUtil.popAuthentication();
+		}
+	}
+
+	public String getFullyAuthenticatedUser() {
+		return fullyAuthenticatedUser;
+	}
+
+	public String getRunAsUser() {
+		return runAsUser;
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+}
@@ -16,18 +16,14 @@
 
 package com.gradecak.alfresco.mvc.aop;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.Method;
-
 import org.alfresco.repo.security.authentication.AuthenticationException;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.service.ServiceRegistry;
 import org.alfresco.service.cmr.security.AuthenticationService;
 import org.alfresco.service.cmr.security.AuthorityService;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
-import org.springframework.core.BridgeMethodResolver;
-import org.springframework.util.ClassUtils;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 import com.gradecak.alfresco.mvc.annotation.AlfrescoAuthentication;
@@ -36,73 +32,98 @@ import com.gradecak.alfresco.mvc.annotation.AuthenticationType;
 public class AuthenticationAdvice implements MethodInterceptor {
 
 	private final ServiceRegistry serviceRegistry;
+	private final AlfrescoAnnotationAttributeSource attributeSource;
+	private final AuthenticationDecisionCache decisionCache;
 
 	public AuthenticationAdvice(final ServiceRegistry serviceRegistry) {
+		this(serviceRegistry, new AlfrescoAnnotationAttributeSource());
+	}
+
+	public AuthenticationAdvice(final ServiceRegistry serviceRegistry,
+			final AlfrescoAnnotationAttributeSource attributeSource) {
+		this(serviceRegistry, attributeSource, new AuthenticationDecisionCache());
+	}
+
+	public AuthenticationAdvice(final ServiceRegistry serviceRegistry,
+			final AlfrescoAnnotationAttributeSource attributeSource, final AuthenticationDecisionCache decisionCache) {
+		Assert.notNull(attributeSource, "attributeSource must not be null!");
+		Assert.notNull(decisionCache, "decisionCache must not be null!");
 		this.serviceRegistry = serviceRegistry;
+		this.attributeSource = attributeSource;
+		this.decisionCache = decisionCache;
 	}
 
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
 
 		Class<?> targetClass = invocation.getThis() != null ? invocation.getThis().getClass() : null;
 
-		Method specificMethod = ClassUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
-		// If we are dealing with method with generic parameters, find the original
-		// method.
-		specificMethod = BridgeMethodResolver.findBridgedMethod(specificMethod);
-
-		AlfrescoAuthentication alfrescoAuthentication = parseAnnotation(specificMethod);
-
-		if (alfrescoAuthentication != null) {
-
-			AuthenticationType authenticationType = alfrescoAuthentication.value();
-
-			if (authenticationType != null && !AuthenticationType.NONE.equals(authenticationType)) {
-				AuthenticationService authenticationService = serviceRegistry.getAuthenticationService();
-				AuthorityService authorityService = serviceRegistry.getAuthorityService();
-
-				String ticket = authenticationService.getCurrentTicket();
-				if (StringUtils.hasText(ticket)) {
-					if (AuthenticationType.USER.equals(authenticationType) && authorityService.hasGuestAuthority()) {
-						throw new AuthenticationException(
-								"User has guest authority where at least a user authentication is required.");
-					} else if (AuthenticationType.ADMIN.equals(authenticationType)
-							&& !authorityService.hasAdminAuthority()) {
-						throw new AuthenticationException(
-								"User does not have admin authority where at least named admin authentication is required .");
-					}
-				} else if (AuthenticationType.GUEST.equals(authenticationType)
-						&& authenticationService.guestUserAuthenticationAllowed()) {
-					authenticationService.authenticateAsGuest();
-				} else {
-					throw new AuthenticationException("\nUnable to authenticate due to one of the following reasons:\n"
-							+ "Credentials are not provided in HTTP request where at least named user or admin authentication is required.\n"
-							+ "Guest user authentication is not allowed where at least guest authentication is required.\n");
-				}
-			}
-		}
+		AlfrescoAuthentication alfrescoAuthentication = attributeSource.getAttributes(invocation.getMethod(), targetClass)
+				.getAuthentication();
+
+		checkAuthentication(alfrescoAuthentication);
 
 		return invocation.proceed();
 	}
 
-	private AlfrescoAuthentication parseAnnotation(AnnotatedElement ae) {
-		AlfrescoAuthentication ann = ae.getAnnotation(AlfrescoAuthentication.class);
-		if (ann == null) {
-			for (Annotation metaAnn : ae.getAnnotations()) {
-				ann = metaAnn.annotationType().getAnnotation(AlfrescoAuthentication.class);
-				if (ann != null) {
-					break;
-				}
-			}
+	void checkAuthentication(final AlfrescoAuthentication alfrescoAuthentication) {
+		if (alfrescoAuthentication == null) {
+			return;
+		}
+
+		AuthenticationType authenticationType = alfrescoAuthentication.value();
+		if (authenticationType == null || AuthenticationType.NONE.equals(authenticationType)) {
+			return;
 		}
-		if (ann != null) {
-			return parseAnnotation(ann);
+
+		// an already authenticated user does not need a ticket to be looked up or
+		// created
+		String userName = AuthenticationUtil.getFullyAuthenticatedUser();
+		if (userName != null) {
+			checkAuthority(userName, authenticationType);
+			return;
+		}
+
+		AuthenticationService authenticationService = serviceRegistry.getAuthenticationService();
+
+		String ticket = authenticationService.getCurrentTicket();
+		if (StringUtils.hasText(ticket)) {
+			checkAuthority(null, authenticationType);
+		} else if (AuthenticationType.GUEST.equals(authenticationType)
+				&& authenticationService.guestUserAuthenticationAllowed()) {
+			authenticationService.authenticateAsGuest();
 		} else {
-			return null;
+			throw new AuthenticationException("\nUnable to authenticate due to one of the following reasons:\n"
+					+ "Credentials are not provided in HTTP request where at least named user or admin authentication is required.\n"
+					+ "Guest user authentication is not allowed where at least guest authentication is required.\n");
 		}
 	}
 
-	private AlfrescoAuthentication parseAnnotation(AlfrescoAuthentication ann) {
-		// parse if needed something else
-		return ann;
+	private void checkAuthority(final String userName, final AuthenticationType authenticationType) {
+		boolean userRequired = AuthenticationType.USER.equals(authenticationType);
+		if (!userRequired && !AuthenticationType.ADMIN.equals(authenticationType)) {
+			return;
+		}
+
+		// the authority service checks the runAs user, the decision is cached for
+		// that one and not for the fully authenticated user, a check done within an
+		// admin or system runAs would grant the caller otherwise
+		String cacheUserName = userName != null ? AuthenticationUtil.getRunAsUser() : null;
+		Boolean granted = cacheUserName != null ? decisionCache.get(cacheUserName, authenticationType) : null;
+		if (granted == null) {
+			AuthorityService authorityService = serviceRegistry.getAuthorityService();
+			granted = userRequired ? !authorityService.hasGuestAuthority() : authorityService.hasAdminAuthority();
+			if (cacheUserName != null) {
+				decisionCache.put(cacheUserName, authenticationType, granted);
+			}
+		}
+
+		if (!granted) {
+			if (userRequired) {
+				throw new AuthenticationException(
+						"User has guest authority where at least a user authentication is required.");
+			}
+			throw new AuthenticationException(
+					"User does not have admin authority where at least named admin authentication is required .");
+		}
 	}
 }
@@ -0,0 +1,146 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport.TxnReadState;
+import org.springframework.util.Assert;
+
+import com.gradecak.alfresco.mvc.annotation.AuthenticationType;
+
+/**
+ * keeps the outcome of the authority checks done by {@link AuthenticationAdvice}
+ * per runAs user and required {@link AuthenticationType}, so that
+ * nested calls do not resolve the same authorities again. With
+ * {@link Scope#TRANSACTION} the decisions are kept until the end of the current
+ * transaction, which in Alfresco usually spans the whole request, and are never
+ * shared with another transaction. Nothing is cached with {@link Scope#NONE},
+ * the default.
+ * <p>
+ * A decision is therefore stale for the rest of the transaction when the same
+ * transaction changes the authorities of the user, {@link #invalidate(String)}
+ * or {@link #invalidateAll()} should then be called.
+ */
+public class AuthenticationDecisionCache {
+
+	public enum Scope {
+		NONE, TRANSACTION
+	}
+
+	private static final String TRANSACTION_RESOURCE_KEY = AuthenticationDecisionCache.class.getName();
+
+	private final Scope scope;
+
+	public AuthenticationDecisionCache() {
+		this(Scope.NONE);
+	}
+
+	public AuthenticationDecisionCache(final Scope scope) {
+		Assert.notNull(scope, "scope must not be null!");
+		this.scope = scope;
+	}
+
+	/**
+	 * @return the cached decision, <code>null</code> if unknown
+	 */
+	public Boolean get(final String userName, final AuthenticationType authenticationType) {
+		if (scope != Scope.TRANSACTION) {
+			return null;
+		}
+		Map<Key, Boolean> transactionDecisions = getTransactionDecisions(false);
+		return transactionDecisions != null ? transactionDecisions.get(new Key(userName, authenticationType)) : null;
+	}
+
+	public void put(final String userName, final AuthenticationType authenticationType, final boolean granted) {
+		if (scope != Scope.TRANSACTION) {
+			return;
+		}
+		Map<Key, Boolean> transactionDecisions = getTransactionDecisions(true);
+		if (transactionDecisions != null) {
+			transactionDecisions.put(new Key(userName, authenticationType), granted);
+		}
+	}
+
+	/**
+	 * forgets the decisions of the user in the current transaction
+	 */
+	public void invalidate(final String userName) {
+		Map<Key, Boolean> transactionDecisions = getTransactionDecisions(false);
+		if (transactionDecisions != null) {
+			transactionDecisions.keySet().removeIf(key -> key.userName.equals(userName));
+		}
+	}
+
+	/**
+	 * forgets all the decisions of the current transaction
+	 */
+	public void invalidateAll() {
+		Map<Key, Boolean> transactionDecisions = getTransactionDecisions(false);
+		if (transactionDecisions != null) {
+			transactionDecisions.clear();
+		}
+	}
+
+	public Scope getScope() {
+		return scope;
+	}
+
+	private Map<Key, Boolean> getTransactionDecisions(final boolean create) {
+		if (AlfrescoTransactionSupport.getTransactionReadState() == TxnReadState.TXN_NONE) {
+			return null;
+		}
+
+		Map<Key, Boolean> transactionDecisions = AlfrescoTransactionSupport.getResource(TRANSACTION_RESOURCE_KEY);
+		if (transactionDecisions == null && create) {
+			transactionDecisions = new HashMap<>();
+			AlfrescoTransactionSupport.bindResource(TRANSACTION_RESOURCE_KEY, transactionDecisions);
+		}
+		return transactionDecisions;
+	}
+
+	private static final class Key {
+
+		private final String userName;
+		private final AuthenticationType authenticationType;
+
+		private Key(final String userName, final AuthenticationType authenticationType) {
+			this.userName = userName;
+			this.authenticationType = authenticationType;
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key otherKey = (Key) other;
+			return userName.equals(otherKey.userName) && authenticationType == otherKey.authenticationType;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(userName, authenticationType);
+		}
+	}
+}
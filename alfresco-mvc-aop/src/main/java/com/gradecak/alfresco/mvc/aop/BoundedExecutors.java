@@ -0,0 +1,45 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * the bounded pools of workers of {@link AlfrescoParallel} and
+ * {@link AlfrescoBatchExecutor}: the idle workers time out and the caller runs
+ * the task itself once all the workers are busy and the queue is full
+ */
+final class BoundedExecutors {
+
+	private BoundedExecutors() {
+	}
+
+	static ThreadPoolExecutor callerRuns(final int threads, final int queueCapacity, final String threadNamePrefix) {
+		Assert.isTrue(threads > 0, "threads must be positive!");
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive!");
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(threadNamePrefix),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
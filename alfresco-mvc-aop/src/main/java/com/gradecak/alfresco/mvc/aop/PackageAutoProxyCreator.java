@@ -16,54 +16,111 @@
 
 package com.gradecak.alfresco.mvc.aop;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.aop.TargetSource;
 import org.springframework.aop.framework.autoproxy.AbstractAutoProxyCreator;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * a proxy creator that applies the specified advisors to the classes defined in
- * the base package. The default advisors are {@link AuthenticationAdvice},
+ * the base packages. The packages are held in a prefix tree so that deciding
+ * whether a bean is proxied is a single lookup whatever the number of packages.
+ * A package ending with <code>.**</code>, or all of them if includeSubpackages
+ * is set to true, also matches its subpackages. The default advisors are {@link AuthenticationAdvice},
  * {@link RunAsAdvice} and {@link TransactionalAdvice} however your own might be
  * added and the default could be skipped by setting skipDefaultInterceptos to
- * true
+ * true. When fused is set to true the default advisors are replaced by the
+ * single {@link AlfrescoFusedAdvice}. As long as only the default advisors
+ * are used, the beans not using any Alfresco annotation are not proxied at
+ * all.
  */
-public class PackageAutoProxyCreator extends AbstractAutoProxyCreator implements InitializingBean {
+public class PackageAutoProxyCreator extends AbstractAutoProxyCreator
+		implements InitializingBean, SmartInitializingSingleton {
 
 	private static final long serialVersionUID = -1219238254256448615L;
+	private static final Logger LOGGER = LoggerFactory.getLogger(PackageAutoProxyCreator.class);
 
 	public static final String[] DEFAULT_INTERCEPTORS = { "mvc.aop.alfrescoAuthenticationAdvisor",
 			"mvc.aop.alfrescoRunAsAdvisor", "mvc.aop.alfrescoTransactionAdvisor" };
 
-	private String basePackage;
+	public static final String[] FUSED_INTERCEPTORS = { "mvc.aop.alfrescoFusedAdvisor" };
+
+	public static final String SUBPACKAGES_SUFFIX = ".**";
+
+	private final Set<String> basePackages = new LinkedHashSet<>();
+	private boolean includeSubpackages = false;
+	private PackageTrie packageTrie = new PackageTrie();
 	private boolean skipDefaultInterceptos = false;
-	private boolean defaultInterceptorsSet = false;
+	private boolean fused = false;
+	private String[] interceptorNames;
+
+	private final Map<Class<?>, Boolean> annotatedClassCache = new ConcurrentHashMap<>(256);
+	private final AtomicInteger proxiedBeanCount = new AtomicInteger();
+	private final AtomicInteger skippedBeanCount = new AtomicInteger();
 
 	public void afterPropertiesSet() throws Exception {
-		if (!defaultInterceptorsSet) {
-			super.setInterceptorNames(withDefaultInterceptorNames(null));
-		}
+		// the properties might be set in any order, resolve the final list once all
+		// of them are known
+		super.setInterceptorNames(withDefaultInterceptorNames(interceptorNames));
+	}
+
+	public void afterSingletonsInstantiated() {
+		LOGGER.info("Alfresco @MVC proxied {} bean(s) and skipped {} bean(s) without Alfresco annotations",
+				proxiedBeanCount.get(), skippedBeanCount.get());
 	}
 
 	/**
-	 * Identify as bean to proxy if the bean name is in the configured base package.
+	 * Identify as bean to proxy if the bean class is in one of the configured base
+	 * packages and, when only the default advisors apply, if it uses an Alfresco
+	 * annotation.
 	 */
 	protected Object[] getAdvicesAndAdvisorsForBean(final Class<?> beanClass, final String beanName,
 			final TargetSource targetSource) {
-		if (this.basePackage != null) {
-			if (beanClass != null && beanClass.getPackage() != null
-					&& beanClass.getPackage().getName().equals(basePackage)) {
-				return PROXY_WITHOUT_ADDITIONAL_INTERCEPTORS;
+		if (beanClass != null && packageTrie.matches(ClassUtils.getPackageName(beanClass))) {
+			if (onlyDefaultInterceptors() && !annotatedClassCache.computeIfAbsent(beanClass,
+					AlfrescoAnnotationAttributeSource::hasAlfrescoAnnotations)) {
+				skippedBeanCount.incrementAndGet();
+				return DO_NOT_PROXY;
 			}
+
+			proxiedBeanCount.incrementAndGet();
+			return PROXY_WITHOUT_ADDITIONAL_INTERCEPTORS;
 		}
 		return DO_NOT_PROXY;
 	}
 
+	private boolean onlyDefaultInterceptors() {
+		// custom interceptors might apply to any method
+		return !skipDefaultInterceptos && ObjectUtils.isEmpty(interceptorNames);
+	}
+
+	public int getProxiedBeanCount() {
+		return proxiedBeanCount.get();
+	}
+
+	public int getSkippedBeanCount() {
+		return skippedBeanCount.get();
+	}
+
 	@Override
 	public void setInterceptorNames(final String... interceptorNames) {
+		this.interceptorNames = interceptorNames;
 		super.setInterceptorNames(withDefaultInterceptorNames(interceptorNames));
 	}
 
@@ -71,10 +128,9 @@ public class PackageAutoProxyCreator extends AbstractAutoProxyCreator implements
 		List<String> interceptors = new ArrayList<String>();
 
 		if (!skipDefaultInterceptos) {
-			for (String interceptorName : DEFAULT_INTERCEPTORS) {
+			for (String interceptorName : fused ? FUSED_INTERCEPTORS : DEFAULT_INTERCEPTORS) {
 				interceptors.add(interceptorName);
 			}
-			defaultInterceptorsSet = true;
 		}
 
 		if (!ObjectUtils.isEmpty(interceptorNames)) {
@@ -87,10 +143,99 @@ public class PackageAutoProxyCreator extends AbstractAutoProxyCreator implements
 	}
 
 	public void setBasePackage(final String basePackage) {
-		this.basePackage = basePackage;
+		if (StringUtils.hasText(basePackage)) {
+			this.basePackages.add(basePackage.trim());
+		}
+		buildPackageTrie();
+	}
+
+	public void setBasePackages(final Collection<String> basePackages) {
+		if (basePackages != null) {
+			for (String basePackage : basePackages) {
+				if (StringUtils.hasText(basePackage)) {
+					this.basePackages.add(basePackage.trim());
+				}
+			}
+		}
+		buildPackageTrie();
+	}
+
+	public void setIncludeSubpackages(final boolean includeSubpackages) {
+		this.includeSubpackages = includeSubpackages;
+		buildPackageTrie();
+	}
+
+	private void buildPackageTrie() {
+		PackageTrie trie = new PackageTrie();
+		for (String basePackage : basePackages) {
+			if (basePackage.endsWith(SUBPACKAGES_SUFFIX)) {
+				trie.add(basePackage.substring(0, basePackage.length() - SUBPACKAGES_SUFFIX.length()), true);
+			} else {
+				trie.add(basePackage, includeSubpackages);
+			}
+		}
+		this.packageTrie = trie;
 	}
 
 	public void setSkipDefaultInterceptos(final boolean skipDefaultInterceptos) {
 		this.skipDefaultInterceptos = skipDefaultInterceptos;
 	}
+
+	public void setFused(final boolean fused) {
+		this.fused = fused;
+	}
+
+	/**
+	 * prefix tree of the package segments, a node is terminal when a configured
+	 * package ends there and it might then match its subpackages too
+	 */
+	static final class PackageTrie implements Serializable {
+
+		private static final long serialVersionUID = 2848913021474186052L;
+
+		private final Node root = new Node();
+
+		void add(final String packageName, final boolean includeSubpackages) {
+			Node node = root;
+			for (String segment : StringUtils.delimitedListToStringArray(packageName, ".")) {
+				node = node.children.computeIfAbsent(segment, key -> new Node());
+			}
+			node.terminal = true;
+			node.includeSubpackages |= includeSubpackages;
+		}
+
+		boolean matches(final String packageName) {
+			Node node = root;
+			int length = packageName.length();
+			int start = 0;
+			while (!node.children.isEmpty()) {
+				int end = packageName.indexOf('.', start);
+				if (end < 0) {
+					end = length;
+				}
+
+				node = node.children.get(packageName.substring(start, end));
+				if (node == null) {
+					return false;
+				}
+				if (end == length) {
+					return node.terminal;
+				}
+				if (node.terminal && node.includeSubpackages) {
+					return true;
+				}
+				start = end + 1;
+			}
+			return false;
+		}
+
+		private static final class Node implements Serializable {
+
+			private static final long serialVersionUID = -4326154372118546718L;
+
+			private final Map<String, Node> children = new HashMap<>(4);
+			private boolean terminal;
+			private boolean includeSubpackages;
+		}
+	}
 }
@@ -16,70 +16,51 @@
 
 package com.gradecak.alfresco.mvc.aop;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.Method;
-
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
-import org.springframework.core.BridgeMethodResolver;
-import org.springframework.util.ClassUtils;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 import com.gradecak.alfresco.mvc.annotation.AlfrescoRunAs;
 
 public class RunAsAdvice implements MethodInterceptor {
 
+	private final AlfrescoAnnotationAttributeSource attributeSource;
+
+	public RunAsAdvice() {
+		this(new AlfrescoAnnotationAttributeSource());
+	}
+
+	public RunAsAdvice(final AlfrescoAnnotationAttributeSource attributeSource) {
+		Assert.notNull(attributeSource, "attributeSource must not be null!");
+		this.attributeSource = attributeSource;
+	}
+
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
 
 		Class<?> targetClass = invocation.getThis() != null ? invocation.getThis().getClass() : null;
 
-		Method specificMethod = ClassUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
-		// If we are dealing with method with generic parameters, find the original
-		// method.
-		specificMethod = BridgeMethodResolver.findBridgedMethod(specificMethod);
-		AlfrescoRunAs alfrescounRunAs = parseRunAsAnnotation(specificMethod);
-		if (alfrescounRunAs != null) {
-			String runAs = alfrescounRunAs.value();
-			if (StringUtils.hasText(runAs)) {
-				RunAsWork<Object> getUserNameRunAsWork = new RunAsWork<Object>() {
-					public Object doWork() throws Exception {
-						try {
-							return invocation.proceed();
-						} catch (Throwable e) {
-							throw new Exception(e.getMessage(), e);
-						}
-					}
-				};
-				return AuthenticationUtil.runAs(getUserNameRunAsWork, runAs);
-			}
+		AlfrescoRunAs alfrescounRunAs = attributeSource.getAttributes(invocation.getMethod(), targetClass)
+				.getRunAs();
+		if (alfrescounRunAs != null && StringUtils.hasText(alfrescounRunAs.value())) {
+			return runAs(alfrescounRunAs.value(), invocation::proceed);
 		}
 
 		return invocation.proceed();
 	}
 
-	private AlfrescoRunAs parseRunAsAnnotation(AnnotatedElement ae) {
-		AlfrescoRunAs ann = ae.getAnnotation(AlfrescoRunAs.class);
-		if (ann == null) {
-			for (Annotation metaAnn : ae.getAnnotations()) {
-				ann = metaAnn.annotationType().getAnnotation(AlfrescoRunAs.class);
-				if (ann != null) {
-					break;
+	Object runAs(final String runAs, final AdviceCallback callback) {
+		RunAsWork<Object> getUserNameRunAsWork = new RunAsWork<Object>() {
+			public Object doWork() throws Exception {
+				try {
+					return callback.proceed();
+				} catch (Throwable e) {
+					throw new Exception(e.getMessage(), e);
 				}
 			}
-		}
-		if (ann != null) {
-			return parseAnnotation(ann);
-		} else {
-			return null;
-		}
+		};
+		return AuthenticationUtil.runAs(getUserNameRunAsWork, runAs);
 	}
-
-	private AlfrescoRunAs parseAnnotation(AlfrescoRunAs ann) {
-		// parse if needed something else
-		return ann;
-	}
-
 }
@@ -0,0 +1,72 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * contention metrics of a method annotated with
+ * {@link com.gradecak.alfresco.mvc.annotation.AlfrescoTransaction}: how often
+ * its transaction had to be retried and how much time was spent before the
+ * last attempt, failed attempts and waits included
+ */
+public class TransactionMetrics {
+
+	private final LongAdder invocations = new LongAdder();
+	private final LongAdder retriedInvocations = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder retryTimeNanos = new LongAdder();
+
+	void record(final int attempts, final long retryTimeNanos) {
+		invocations.increment();
+		if (attempts > 1) {
+			retriedInvocations.increment();
+			retries.add(attempts - 1);
+			this.retryTimeNanos.add(retryTimeNanos);
+		}
+	}
+
+	public long getInvocations() {
+		return invocations.sum();
+	}
+
+	public long getRetriedInvocations() {
+		return retriedInvocations.sum();
+	}
+
+	public long getRetries() {
+		return retries.sum();
+	}
+
+	public long getRetryTime(final TimeUnit unit) {
+		return unit.convert(retryTimeNanos.sum(), TimeUnit.NANOSECONDS);
+	}
+
+	public void reset() {
+		invocations.reset();
+		retriedInvocations.reset();
+		retries.reset();
+		retryTimeNanos.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "invocations=" + getInvocations() + ", retriedInvocations=" + getRetriedInvocations() + ", retries="
+				+ getRetries() + ", retryTimeMs=" + getRetryTime(TimeUnit.MILLISECONDS);
+	}
+}
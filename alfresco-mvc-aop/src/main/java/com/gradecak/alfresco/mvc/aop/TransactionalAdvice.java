@@ -16,73 +16,239 @@
 
 package com.gradecak.alfresco.mvc.aop;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport.TxnReadState;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
 import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
 import org.alfresco.service.ServiceRegistry;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
-import org.springframework.core.BridgeMethodResolver;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
-import org.springframework.util.ClassUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
 
 import com.gradecak.alfresco.mvc.annotation.AlfrescoTransaction;
 
-public class TransactionalAdvice implements MethodInterceptor {
+/**
+ * runs the methods annotated with {@link AlfrescoTransaction} in a retrying
+ * transaction. A method declaring its own retry policy gets its own
+ * {@link RetryingTransactionHelper}, the others use the repository one. The
+ * retries of each method are recorded in its {@link TransactionMetrics}.
+ * <p>
+ * The {@link Propagation} is evaluated against the current Alfresco
+ * transaction: SUPPORTS runs the method as is, MANDATORY and NEVER fail fast
+ * and NOT_SUPPORTED suspends the current transaction through the
+ * <code>transactionManager</code> bean, failing fast without it.
+ */
+public class TransactionalAdvice implements MethodInterceptor, BeanFactoryAware {
+
+	public static final String TRANSACTION_MANAGER_BEAN_NAME = "transactionManager";
 
 	private final ServiceRegistry serviceRegistry;
+	private final AlfrescoAnnotationAttributeSource attributeSource;
+
+	private final Map<AlfrescoTransaction, RetryingTransactionHelper> retryingTransactionHelpers =
+			new ConcurrentHashMap<>();
+	private final Map<Method, TransactionMetrics> transactionMetrics = new ConcurrentHashMap<>();
+
+	private BeanFactory beanFactory;
+	private volatile TransactionTemplate notSupportedTransactionTemplate;
 
 	public TransactionalAdvice(final ServiceRegistry serviceRegistry) {
+		this(serviceRegistry, new AlfrescoAnnotationAttributeSource());
+	}
+
+	public TransactionalAdvice(final ServiceRegistry serviceRegistry,
+			final AlfrescoAnnotationAttributeSource attributeSource) {
+		Assert.notNull(attributeSource, "attributeSource must not be null!");
 		this.serviceRegistry = serviceRegistry;
+		this.attributeSource = attributeSource;
 	}
 
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
 		Class<?> targetClass = invocation.getThis() != null ? invocation.getThis().getClass() : null;
 
-		Method specificMethod = ClassUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
-		// If we are dealing with method with generic parameters, find the original
-		// method.
-		specificMethod = BridgeMethodResolver.findBridgedMethod(specificMethod);
-		AlfrescoTransaction alfrescoTransaction = parseAnnotation(specificMethod);
+		AlfrescoTransaction alfrescoTransaction = attributeSource.getAttributes(invocation.getMethod(), targetClass)
+				.getTransaction();
 
 		if (alfrescoTransaction != null) {
-			RetryingTransactionCallback<Object> exampleWork = new RetryingTransactionCallback<Object>() {
-				public Object execute() throws Throwable {
-					return invocation.proceed();
-				}
-			};
-			boolean readonly = alfrescoTransaction.readOnly();
-			Propagation propagation = alfrescoTransaction.propagation();
-
-			boolean requiresNew = Propagation.REQUIRES_NEW.equals(propagation);
-			return serviceRegistry.getRetryingTransactionHelper().doInTransaction(exampleWork, readonly, requiresNew);
+			return doInTransaction(invocation.getMethod(), alfrescoTransaction, invocation::proceed);
 		} else {
 			return invocation.proceed();
 		}
 
 	}
 
-	private AlfrescoTransaction parseAnnotation(AnnotatedElement ae) {
-		AlfrescoTransaction ann = ae.getAnnotation(AlfrescoTransaction.class);
-		if (ann == null) {
-			for (Annotation metaAnn : ae.getAnnotations()) {
-				ann = metaAnn.annotationType().getAnnotation(AlfrescoTransaction.class);
-				if (ann != null) {
-					break;
-				}
+	Object doInTransaction(final Method method, final AlfrescoTransaction alfrescoTransaction,
+			final AdviceCallback callback) throws Throwable {
+		Propagation propagation = alfrescoTransaction.propagation();
+		TxnReadState transactionState = AlfrescoTransactionSupport.getTransactionReadState();
+
+		switch (propagation) {
+		case SUPPORTS:
+			return callback.proceed();
+		case MANDATORY:
+			if (TxnReadState.TXN_NONE.equals(transactionState)) {
+				throw new IllegalTransactionStateException(
+						"No existing transaction found for transaction marked with propagation 'mandatory'");
+			}
+			return callback.proceed();
+		case NEVER:
+			if (!TxnReadState.TXN_NONE.equals(transactionState)) {
+				throw new IllegalTransactionStateException(
+						"Existing transaction found for transaction marked with propagation 'never'");
+			}
+			return callback.proceed();
+		case NOT_SUPPORTED:
+			if (TxnReadState.TXN_NONE.equals(transactionState)) {
+				return callback.proceed();
 			}
+			return doWithoutTransaction(method, alfrescoTransaction, callback);
+		case REQUIRES_NEW:
+			return doInRetryingTransaction(method, alfrescoTransaction, callback, alfrescoTransaction.readOnly(), true);
+		default:
+			// REQUIRED, NESTED is not supported by Alfresco and joins the existing
+			// transaction too
+			return doInRetryingTransaction(method, alfrescoTransaction, callback, alfrescoTransaction.readOnly(),
+					false);
 		}
-		if (ann != null) {
-			return parseAnnotation(ann);
-		} else {
-			return null;
+	}
+
+	private Object doInRetryingTransaction(final Method method, final AlfrescoTransaction alfrescoTransaction,
+			final AdviceCallback callback, final boolean readonly, final boolean requiresNew) {
+		AttemptCountingCallback work = new AttemptCountingCallback(callback);
+		try {
+			return getRetryingTransactionHelper(alfrescoTransaction).doInTransaction(work, readonly, requiresNew);
+		} finally {
+			transactionMetrics.computeIfAbsent(method, key -> new TransactionMetrics()).record(work.attempts,
+					work.lastAttemptStart - work.firstAttemptStart);
+		}
+	}
+
+	private Object doWithoutTransaction(final Method method, final AlfrescoTransaction alfrescoTransaction,
+			final AdviceCallback callback) throws Throwable {
+		TransactionTemplate template = getNotSupportedTransactionTemplate();
+		if (template == null) {
+			throw new IllegalTransactionStateException(
+					"Existing transaction found for transaction marked with propagation 'not_supported' but no '"
+							+ TRANSACTION_MANAGER_BEAN_NAME + "' bean to suspend it");
+		}
+
+		try {
+			return template.execute(status -> {
+				try {
+					return callback.proceed();
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new CheckedExceptionWrapper(e);
+				}
+			});
+		} catch (CheckedExceptionWrapper e) {
+			throw e.getCause();
+		}
+	}
+
+	private TransactionTemplate getNotSupportedTransactionTemplate() {
+		TransactionTemplate template = this.notSupportedTransactionTemplate;
+		if (template == null && beanFactory != null && beanFactory.containsBean(TRANSACTION_MANAGER_BEAN_NAME)) {
+			template = new TransactionTemplate(
+					beanFactory.getBean(TRANSACTION_MANAGER_BEAN_NAME, PlatformTransactionManager.class));
+			template.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+			this.notSupportedTransactionTemplate = template;
+		}
+		return template;
+	}
+
+	public void setBeanFactory(final BeanFactory beanFactory) throws BeansException {
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * @return the metrics of all the transactional methods invoked so far
+	 */
+	public Map<Method, TransactionMetrics> getTransactionMetrics() {
+		return Collections.unmodifiableMap(transactionMetrics);
+	}
+
+	private RetryingTransactionHelper getRetryingTransactionHelper(final AlfrescoTransaction alfrescoTransaction) {
+		if (!hasRetryPolicy(alfrescoTransaction)) {
+			return serviceRegistry.getRetryingTransactionHelper();
+		}
+		return retryingTransactionHelpers.computeIfAbsent(alfrescoTransaction, this::createRetryingTransactionHelper);
+	}
+
+	private RetryingTransactionHelper createRetryingTransactionHelper(final AlfrescoTransaction alfrescoTransaction) {
+		// the ServiceRegistry helper is the shared repository bean, the
+		// TransactionService creates a new one, configured with the repository
+		// settings, on each call so it might be changed without affecting the
+		// other transactions
+		RetryingTransactionHelper helper = serviceRegistry.getTransactionService().getRetryingTransactionHelper();
+		if (alfrescoTransaction.maxRetries() >= 0) {
+			helper.setMaxRetries(alfrescoTransaction.maxRetries());
+		}
+		if (alfrescoTransaction.minRetryWaitMs() >= 0) {
+			helper.setMinRetryWaitMs(alfrescoTransaction.minRetryWaitMs());
+		}
+		if (alfrescoTransaction.retryWaitIncrementMs() >= 0) {
+			helper.setRetryWaitIncrementMs(alfrescoTransaction.retryWaitIncrementMs());
+		}
+		if (alfrescoTransaction.maxRetryWaitMs() >= 0) {
+			helper.setMaxRetryWaitMs(alfrescoTransaction.maxRetryWaitMs());
+		}
+		if (alfrescoTransaction.extraExceptions().length > 0) {
+			List<Class<?>> extraExceptions = new ArrayList<>(Arrays.asList(alfrescoTransaction.extraExceptions()));
+			helper.setExtraExceptions(extraExceptions);
 		}
+		return helper;
 	}
 
-	private AlfrescoTransaction parseAnnotation(AlfrescoTransaction ann) {
-		// parse if needed something else
-		return ann;
+	private boolean hasRetryPolicy(final AlfrescoTransaction alfrescoTransaction) {
+		return alfrescoTransaction.maxRetries() >= 0 || alfrescoTransaction.minRetryWaitMs() >= 0
+				|| alfrescoTransaction.retryWaitIncrementMs() >= 0 || alfrescoTransaction.maxRetryWaitMs() >= 0
+				|| alfrescoTransaction.extraExceptions().length > 0;
+	}
+
+	private static final class CheckedExceptionWrapper extends RuntimeException {
+
+		private static final long serialVersionUID = 5302148216441096712L;
+
+		private CheckedExceptionWrapper(final Throwable cause) {
+			super(cause);
+		}
+	}
+
+	private static final class AttemptCountingCallback implements RetryingTransactionCallback<Object> {
+
+		private final AdviceCallback callback;
+		private int attempts;
+		private long firstAttemptStart;
+		private long lastAttemptStart;
+
+		private AttemptCountingCallback(final AdviceCallback callback) {
+			this.callback = callback;
+		}
+
+		public Object execute() throws Throwable {
+			lastAttemptStart = System.nanoTime();
+			if (attempts++ == 0) {
+				firstAttemptStart = lastAttemptStart;
+			}
+			return callback.proceed();
+		}
 	}
 }
@@ -16,16 +16,22 @@
 
 package com.gradecak.alfresco.mvc.aop;
 
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.alfresco.repo.security.authentication.AuthenticationException;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
 import org.alfresco.service.ServiceRegistry;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.repository.NodeService;
 import org.alfresco.service.cmr.repository.StoreRef;
 import org.alfresco.service.cmr.security.AuthorityService;
 import org.alfresco.service.cmr.security.MutableAuthenticationService;
+import java.util.ArrayList;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,7 +42,10 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.gradecak.alfresco.mvc.annotation.AlfrescoAuthentication;
+import com.gradecak.alfresco.mvc.annotation.AuthenticationType;
 import com.gradecak.alfresco.mvc.service.AuthenticationService;
 
 @ExtendWith(SpringExtension.class)
@@ -125,4 +134,107 @@ public class AuthenticationTest {
 
 		service.getNamePropertyAsAdmin(nodeRef);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void authentifiedUser_noTicketLookup() {
+
+		AuthenticationUtil.setFullyAuthenticatedUser("test");
+		when(authorityService.hasGuestAuthority()).thenReturn(false);
+
+		service.getNamePropertyAsUser(nodeRef);
+		verify(authenticationService, never()).getCurrentTicket();
+	}
+
+	@Test
+	public void transactionDecisionCache_keyedByRunAsUser() throws Exception {
+		AuthenticationAdvice advice = new AuthenticationAdvice(serviceRegistry, new AlfrescoAnnotationAttributeSource(),
+				new AuthenticationDecisionCache(AuthenticationDecisionCache.Scope.TRANSACTION));
+		AlfrescoAuthentication adminRequired = AuthenticationService.class
+				.getMethod("getNamePropertyAsAdmin", NodeRef.class).getAnnotation(AlfrescoAuthentication.class);
+		when(authorityService.hasAdminAuthority())
+				.thenAnswer(invocation -> "admin".equals(AuthenticationUtil.getRunAsUser()));
+
+		AuthenticationUtil.setFullyAuthenticatedUser("test");
+		inTransaction(() -> {
+			AuthenticationUtil.runAs(new RunAsWork<Void>() {
+				public Void doWork() throws Exception {
+					advice.checkAuthentication(adminRequired);
+					return null;
+				}
+			}, "admin");
+
+			Assertions.assertThrows(AuthenticationException.class, () -> advice.checkAuthentication(adminRequired));
+		});
+	}
+
+	@Test
+	public void transactionDecisionCache() {
+		AuthenticationDecisionCache cache = new AuthenticationDecisionCache(AuthenticationDecisionCache.Scope.TRANSACTION);
+
+		// nothing is kept without a transaction
+		cache.put("test", AuthenticationType.ADMIN, true);
+		Assertions.assertNull(cache.get("test", AuthenticationType.ADMIN));
+
+		inTransaction(() -> {
+			Assertions.assertNull(cache.get("test", AuthenticationType.ADMIN));
+			cache.put("test", AuthenticationType.ADMIN, true);
+			cache.put("other", AuthenticationType.ADMIN, false);
+			Assertions.assertEquals(Boolean.TRUE, cache.get("test", AuthenticationType.ADMIN));
+			Assertions.assertNull(cache.get("test", AuthenticationType.USER));
+
+			cache.invalidate("test");
+			Assertions.assertNull(cache.get("test", AuthenticationType.ADMIN));
+			Assertions.assertEquals(Boolean.FALSE, cache.get("other", AuthenticationType.ADMIN));
+
+			cache.invalidateAll();
+			Assertions.assertNull(cache.get("other", AuthenticationType.ADMIN));
+
+			cache.put("test", AuthenticationType.ADMIN, true);
+		});
+
+		// a new transaction does not see the decisions of the previous one
+		inTransaction(() -> Assertions.assertNull(cache.get("test", AuthenticationType.ADMIN)));
+	}
+
+	@Test
+	public void transactionDecisionCache_authoritiesResolvedOncePerTransaction() throws Exception {
+		AuthenticationAdvice advice = new AuthenticationAdvice(serviceRegistry, new AlfrescoAnnotationAttributeSource(),
+				new AuthenticationDecisionCache(AuthenticationDecisionCache.Scope.TRANSACTION));
+		AlfrescoAuthentication adminRequired = AuthenticationService.class
+				.getMethod("getNamePropertyAsAdmin", NodeRef.class).getAnnotation(AlfrescoAuthentication.class);
+		when(authorityService.hasAdminAuthority()).thenReturn(true);
+
+		AuthenticationUtil.setFullyAuthenticatedUser("test");
+		inTransaction(() -> {
+			advice.checkAuthentication(adminRequired);
+			advice.checkAuthentication(adminRequired);
+		});
+		inTransaction(() -> advice.checkAuthentication(adminRequired));
+
+		verify(authorityService, times(2)).hasAdminAuthority();
+	}
+
+	/**
+	 * runs the work with an active transaction synchronization, as
+	 * {@link org.alfresco.repo.transaction.AlfrescoTransactionSupport} expects,
+	 * and unbinds its resources afterwards
+	 */
+	private static void inTransaction(final TransactionWork work) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			work.execute();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+			new ArrayList<>(TransactionSynchronizationManager.getResourceMap().keySet())
+					.forEach(TransactionSynchronizationManager::unbindResource);
+		}
+	}
+
+	private interface TransactionWork {
+		void execute() throws Exception;
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.ServiceRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(value = { "classpath:test-aop-context.xml" })
+public class BatchTest {
+
+	@Mock
+	private RetryingTransactionHelper retryingTransactionHelper;
+
+	@Autowired
+	private ServiceRegistry serviceRegistry;
+
+	@Autowired
+	private AlfrescoBatchExecutor batchExecutor;
+
+	private AuthenticationUtil util = new AuthenticationUtil();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+
+		when(serviceRegistry.getRetryingTransactionHelper()).thenReturn(retryingTransactionHelper);
+		doAnswer(invocation -> invocation.getArgument(0, RetryingTransactionCallback.class).execute())
+				.when(retryingTransactionHelper)
+				.doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean());
+
+		util.afterPropertiesSet();
+		AuthenticationUtil.clearCurrentSecurityContext();
+	}
+
+	@Test
+	public void chunksWithCallerIdentityAndIsolatedFailure() {
+		AuthenticationUtil.setFullyAuthenticatedUser("test");
+
+		Set<String> users = ConcurrentHashMap.newKeySet();
+		List<Integer> items = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+
+		AlfrescoBatchResult result = batchExecutor.process(items, 3, chunk -> {
+			users.add(AuthenticationUtil.getFullyAuthenticatedUser());
+			if (chunk.contains(4)) {
+				throw new IllegalStateException("chunk failure");
+			}
+		});
+
+		Assertions.assertEquals(4, result.getChunks().size());
+		Assertions.assertEquals(Set.of("test"), users);
+		Assertions.assertFalse(result.isSuccessful());
+		Assertions.assertEquals(1, result.getFailedChunks().size());
+		Assertions.assertEquals(1, result.getFailedChunks().get(0).getIndex());
+		Assertions.assertEquals(7, result.getProcessedCount());
+		Assertions.assertEquals(3, result.getFailedCount());
+		Assertions.assertEquals("test", AuthenticationUtil.getFullyAuthenticatedUser());
+	}
+}
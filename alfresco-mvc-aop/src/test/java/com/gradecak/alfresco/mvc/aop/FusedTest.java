@@ -0,0 +1,132 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.alfresco.repo.security.authentication.AuthenticationException;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.ServiceRegistry;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.repository.StoreRef;
+import org.alfresco.service.cmr.security.AuthorityService;
+import org.alfresco.service.cmr.security.MutableAuthenticationService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.gradecak.alfresco.mvc.service.AuthenticationService;
+import com.gradecak.alfresco.mvc.service.RunAsService;
+import com.gradecak.alfresco.mvc.service.TransactionalService;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(value = { "classpath:test-aop-fused-context.xml" })
+public class FusedTest {
+
+	@Mock
+	private MutableAuthenticationService authenticationService;
+
+	@Mock
+	private AuthorityService authorityService;
+
+	@Mock
+	private NodeService nodeService;
+
+	@Mock
+	private RetryingTransactionHelper retryingTransactionHelper;
+
+	@Autowired
+	private ServiceRegistry serviceRegistry;
+
+	@Autowired
+	private AuthenticationService authenticationAnnotatedService;
+
+	@Autowired
+	private RunAsService runAsService;
+
+	@Autowired
+	private TransactionalService transactionalService;
+
+	private AuthenticationUtil util = new AuthenticationUtil();
+	private NodeRef nodeRef = new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, "aaa");
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+
+		when(serviceRegistry.getAuthenticationService()).thenReturn(authenticationService);
+		when(serviceRegistry.getAuthorityService()).thenReturn(authorityService);
+		when(serviceRegistry.getNodeService()).thenReturn(nodeService);
+		when(serviceRegistry.getRetryingTransactionHelper()).thenReturn(retryingTransactionHelper);
+		when(authenticationService.getCurrentTicket()).thenReturn("ticket");
+
+		when(authorityService.hasGuestAuthority()).thenReturn(true);
+		when(authorityService.hasAdminAuthority()).thenReturn(false);
+
+		util.afterPropertiesSet();
+
+		Assertions.assertTrue(AopUtils.isAopProxy(authenticationAnnotatedService));
+		Assertions.assertTrue(AopUtils.isAopProxy(runAsService));
+		Assertions.assertTrue(AopUtils.isAopProxy(transactionalService));
+
+		AuthenticationUtil.clearCurrentSecurityContext();
+	}
+
+	@Test
+	public void singleFusedAdvisor() {
+		Advisor[] advisors = ((Advised) transactionalService).getAdvisors();
+		Assertions.assertEquals(1, advisors.length);
+		Assertions.assertTrue(advisors[0].getAdvice() instanceof AlfrescoFusedAdvice);
+	}
+
+	@Test
+	public void authentifiedAsGuest_atLeastUserAuthenticationRequired() {
+		Assertions.assertThrows(AuthenticationException.class, () -> {
+			authenticationAnnotatedService.getNamePropertyAsUser(nodeRef);
+		});
+	}
+
+	@Test
+	public void noAutehntication_runAsSystem() {
+		runAsService.getNamePropertyAsSystem(nodeRef);
+
+		Assertions.assertNull(AuthenticationUtil.getRunAsUser());
+		Assertions.assertNull(AuthenticationUtil.getFullyAuthenticatedUser());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void txReadOnlyWithPropagationRequiresNew() throws Exception {
+		transactionalService.transactioReadOnlyWithPropagationRequiresNew();
+		verify(retryingTransactionHelper).doInTransaction(any(RetryingTransactionCallback.class), eq(true), eq(true));
+	}
+}
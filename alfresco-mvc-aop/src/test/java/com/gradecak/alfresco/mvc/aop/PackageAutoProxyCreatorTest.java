@@ -0,0 +1,121 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+
+import com.gradecak.alfresco.mvc.annotation.AlfrescoTransaction;
+import com.gradecak.alfresco.mvc.service.ClassTransactionalService;
+import com.gradecak.alfresco.mvc.service.TransactionalService;
+import com.gradecak.alfresco.mvc.service.UnannotatedService;
+
+public class PackageAutoProxyCreatorTest {
+
+	@Test
+	public void exactPackageOnly() {
+		PackageAutoProxyCreator creator = creatorWithCustomInterceptor();
+		creator.setBasePackage("com.gradecak.alfresco.mvc");
+
+		Assertions.assertFalse(isProxied(creator, TransactionalService.class));
+		Assertions.assertFalse(isProxied(creator, AlfrescoTransaction.class));
+		Assertions.assertFalse(isProxied(creator, String.class));
+	}
+
+	@Test
+	public void severalPackages() {
+		PackageAutoProxyCreator creator = creatorWithCustomInterceptor();
+		creator.setBasePackages(List.of("com.gradecak.alfresco.mvc.annotation", "com.gradecak.alfresco.mvc.service"));
+
+		Assertions.assertTrue(isProxied(creator, TransactionalService.class));
+		Assertions.assertTrue(isProxied(creator, AlfrescoTransaction.class));
+		Assertions.assertFalse(isProxied(creator, PackageAutoProxyCreator.class));
+	}
+
+	@Test
+	public void subpackagesOfOnePackage() {
+		PackageAutoProxyCreator creator = creatorWithCustomInterceptor();
+		creator.setBasePackages(List.of("com.gradecak.alfresco.mvc.aop", "com.gradecak.alfresco.mvc.**"));
+
+		Assertions.assertTrue(isProxied(creator, TransactionalService.class));
+		Assertions.assertTrue(isProxied(creator, PackageAutoProxyCreator.class));
+		Assertions.assertFalse(isProxied(creator, String.class));
+	}
+
+	@Test
+	public void subpackagesOfAllPackages() {
+		PackageAutoProxyCreator creator = creatorWithCustomInterceptor();
+		creator.setIncludeSubpackages(true);
+		creator.setBasePackage("com.gradecak");
+
+		Assertions.assertTrue(isProxied(creator, TransactionalService.class));
+		Assertions.assertFalse(isProxied(creator, List.class));
+	}
+
+	@Test
+	public void unannotatedBeansSkipped() {
+		PackageAutoProxyCreator creator = new PackageAutoProxyCreator();
+		creator.setBasePackage("com.gradecak.alfresco.mvc.service");
+
+		Assertions.assertTrue(isProxied(creator, TransactionalService.class));
+		Assertions.assertTrue(isProxied(creator, ClassTransactionalService.class));
+		Assertions.assertFalse(isProxied(creator, UnannotatedService.class));
+		Assertions.assertEquals(2, creator.getProxiedBeanCount());
+		Assertions.assertEquals(1, creator.getSkippedBeanCount());
+	}
+
+	@Test
+	public void oneCreatorPerRegistry() {
+		SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+		AlfrescoProxyRegistrar.registerOrEscalateApcAsRequired(PackageAutoProxyCreator.class, registry, null,
+				List.of("com.gradecak.alfresco.mvc.service"), true);
+		AlfrescoProxyRegistrar.registerOrEscalateApcAsRequired(PackageAutoProxyCreator.class, registry, null,
+				List.of("com.gradecak.alfresco.mvc.annotation"), true);
+
+		Assertions.assertEquals(1, registry.getBeanDefinitionCount());
+		Assertions.assertEquals(Set.of("com.gradecak.alfresco.mvc.service", "com.gradecak.alfresco.mvc.annotation"),
+				registry.getBeanDefinition(AlfrescoProxyRegistrar.PACKAGE_PROXY_CREATOR_BEAN_NAME).getPropertyValues()
+						.get("basePackages"));
+	}
+
+	@Test
+	public void fusedAndNotFusedRejected() {
+		SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+		AlfrescoProxyRegistrar.registerOrEscalateApcAsRequired(PackageAutoProxyCreator.class, registry, null,
+				List.of("com.gradecak.alfresco.mvc.service"), false);
+
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> AlfrescoProxyRegistrar.registerOrEscalateApcAsRequired(PackageAutoProxyCreator.class, registry,
+						null, List.of("com.gradecak.alfresco.mvc.annotation"), true));
+		Assertions.assertEquals(1, registry.getBeanDefinitionCount());
+	}
+
+	private PackageAutoProxyCreator creatorWithCustomInterceptor() {
+		// a custom interceptor might apply to any bean, nothing is skipped
+		PackageAutoProxyCreator creator = new PackageAutoProxyCreator();
+		creator.setInterceptorNames("test.interceptor");
+		return creator;
+	}
+
+	private boolean isProxied(PackageAutoProxyCreator creator, Class<?> beanClass) {
+		return creator.getAdvicesAndAdvisorsForBean(beanClass, beanClass.getName(), null) != null;
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.aop;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.ServiceRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(value = { "classpath:test-aop-context.xml" })
+public class ParallelTest {
+
+	@Mock
+	private RetryingTransactionHelper retryingTransactionHelper;
+
+	@Autowired
+	private ServiceRegistry serviceRegistry;
+
+	@Autowired
+	private AlfrescoParallel parallel;
+
+	private AuthenticationUtil util = new AuthenticationUtil();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+
+		when(serviceRegistry.getRetryingTransactionHelper()).thenReturn(retryingTransactionHelper);
+		doAnswer(invocation -> invocation.getArgument(0, RetryingTransactionCallback.class).execute())
+				.when(retryingTransactionHelper)
+				.doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean());
+
+		util.afterPropertiesSet();
+		AuthenticationUtil.clearCurrentSecurityContext();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void readsInOrderWithCallerIdentityInReadOnlyTransactions() throws Exception {
+		AuthenticationUtil.setFullyAuthenticatedUser("test");
+
+		RetryingTransactionCallback<String> user = () -> AuthenticationUtil.getFullyAuthenticatedUser();
+		RetryingTransactionCallback<String> constant = () -> "constant";
+		List<String> results = parallel.invokeAll(List.of(user, constant, user), 5, TimeUnit.SECONDS);
+
+		Assertions.assertEquals(List.of("test", "constant", "test"), results);
+		verify(retryingTransactionHelper, times(3)).doInTransaction(any(RetryingTransactionCallback.class), eq(true),
+				eq(true));
+		Assertions.assertEquals("test", AuthenticationUtil.getFullyAuthenticatedUser());
+	}
+
+	@Test
+	public void failureIsRethrown() {
+		RetryingTransactionCallback<String> failure = () -> {
+			throw new IllegalStateException("read failure");
+		};
+		RetryingTransactionCallback<String> constant = () -> "constant";
+
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> parallel.invokeAll(List.of(constant, failure), 5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void timeoutCancelsPendingReads() throws Exception {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		RetryingTransactionCallback<String> slow = () -> {
+			try {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return "slow";
+		};
+
+		Assertions.assertThrows(TimeoutException.class,
+				() -> parallel.invokeAll(List.of(slow), 100, TimeUnit.MILLISECONDS));
+		Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+	}
+}
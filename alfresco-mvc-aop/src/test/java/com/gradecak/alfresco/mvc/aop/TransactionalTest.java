@@ -17,15 +17,25 @@
 package com.gradecak.alfresco.mvc.aop;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+
 import javax.transaction.SystemException;
 
+import org.alfresco.model.ContentModel;
 import org.alfresco.repo.transaction.RetryingTransactionHelper;
 import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
 import org.alfresco.service.ServiceRegistry;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.transaction.TransactionService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,7 +46,11 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.gradecak.alfresco.mvc.annotation.AlfrescoTransaction;
+import com.gradecak.alfresco.mvc.service.ClassTransactionalService;
 import com.gradecak.alfresco.mvc.service.TransactionalService;
 
 @ExtendWith(SpringExtension.class)
@@ -46,19 +60,38 @@ public class TransactionalTest {
 	@Mock
 	private RetryingTransactionHelper retryingTransactionHelper;
 
+	@Mock
+	private RetryingTransactionHelper policyRetryingTransactionHelper;
+
+	@Mock
+	private TransactionService transactionService;
+
+	@Mock
+	private NodeService nodeService;
+
 	@Autowired
 	private ServiceRegistry serviceRegistry;
 
 	@Autowired
 	private TransactionalService service;
 
+	@Autowired
+	private ClassTransactionalService classService;
+
+	@Autowired
+	private TransactionalAdvice transactionalAdvice;
+
 	@BeforeEach
 	public void setUp() throws Exception {
 		MockitoAnnotations.initMocks(this);
 
 		when(serviceRegistry.getRetryingTransactionHelper()).thenReturn(retryingTransactionHelper);
+		when(serviceRegistry.getTransactionService()).thenReturn(transactionService);
+		when(transactionService.getRetryingTransactionHelper()).thenReturn(policyRetryingTransactionHelper);
+		when(serviceRegistry.getNodeService()).thenReturn(nodeService);
 
 		Assertions.assertTrue(AopUtils.isAopProxy(service));
+		Assertions.assertTrue(AopUtils.isAopProxy(classService));
 	}
 
 	@Test
@@ -81,4 +114,100 @@ public class TransactionalTest {
 		service.transactioReadOnlyWithPropagationRequiresNew();
 		verify(retryingTransactionHelper).doInTransaction(any(RetryingTransactionCallback.class), eq(true), eq(true));
 	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void txReadOnlyFromClassAnnotation() throws SystemException {
+		classService.transactionFromClass();
+		verify(retryingTransactionHelper).doInTransaction(any(RetryingTransactionCallback.class), eq(true), eq(false));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void txMethodAnnotationOverridesClassAnnotation() throws SystemException {
+		classService.transactionOverriddenByMethod();
+		verify(retryingTransactionHelper).doInTransaction(any(RetryingTransactionCallback.class), eq(false), eq(false));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void txWithRetryPolicy() throws Exception {
+		doAnswer(invocation -> {
+			RetryingTransactionCallback<Object> callback = invocation.getArgument(0);
+			// a first failed attempt, then the retry
+			callback.execute();
+			return callback.execute();
+		}).when(policyRetryingTransactionHelper).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(),
+				anyBoolean());
+
+		service.transactionWithRetryPolicy();
+
+		verify(policyRetryingTransactionHelper).setMaxRetries(3);
+		verify(policyRetryingTransactionHelper).setMinRetryWaitMs(10);
+		verify(policyRetryingTransactionHelper).setRetryWaitIncrementMs(20);
+		verify(policyRetryingTransactionHelper).setMaxRetryWaitMs(100);
+		verify(policyRetryingTransactionHelper).setExtraExceptions(List.of(IllegalStateException.class));
+
+		// the shared repository helper is left as is
+		verify(retryingTransactionHelper, never()).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(),
+				anyBoolean());
+		verify(retryingTransactionHelper, never()).setMaxRetries(anyInt());
+		verify(retryingTransactionHelper, never()).setMinRetryWaitMs(anyInt());
+		verify(retryingTransactionHelper, never()).setRetryWaitIncrementMs(anyInt());
+		verify(retryingTransactionHelper, never()).setMaxRetryWaitMs(anyInt());
+		verify(retryingTransactionHelper, never()).setExtraExceptions(anyList());
+
+		TransactionMetrics metrics = transactionalAdvice.getTransactionMetrics()
+				.get(TransactionalService.class.getMethod("transactionWithRetryPolicy"));
+		Assertions.assertEquals(1, metrics.getInvocations());
+		Assertions.assertEquals(1, metrics.getRetriedInvocations());
+		Assertions.assertEquals(1, metrics.getRetries());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void txSupportsWithoutTransaction() {
+		service.transactionSupports();
+		verify(nodeService).getProperty(null, ContentModel.PROP_NAME);
+		verify(retryingTransactionHelper, never()).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(),
+				anyBoolean());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void txNotSupportedWithoutTransaction() {
+		service.transactionNotSupported();
+		verify(nodeService).getProperty(null, ContentModel.PROP_NAME);
+		verify(retryingTransactionHelper, never()).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(),
+				anyBoolean());
+	}
+
+	@Test
+	public void txNotSupportedWithTransactionWithoutTransactionManager() throws Exception {
+		TransactionalAdvice advice = new TransactionalAdvice(serviceRegistry);
+		AlfrescoTransaction notSupported = TransactionalService.class.getMethod("transactionNotSupported")
+				.getAnnotation(AlfrescoTransaction.class);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			Assertions.assertThrows(IllegalTransactionStateException.class,
+					() -> advice.doInTransaction(null, notSupported, () -> nodeService.getProperty(null, null)));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		verify(nodeService, never()).getProperty(null, null);
+	}
+
+	@Test
+	public void txMandatoryWithoutTransaction() {
+		Assertions.assertThrows(IllegalTransactionStateException.class, () -> {
+			service.transactionMandatory();
+		});
+	}
+
+	@Test
+	public void txNeverWithoutTransaction() {
+		service.transactionNever();
+		verify(nodeService).getProperty(null, ContentModel.PROP_NAME);
+	}
 }
\ No newline at end of file
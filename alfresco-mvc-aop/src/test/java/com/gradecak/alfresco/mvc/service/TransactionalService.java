@@ -46,4 +46,30 @@ public class TransactionalService {
 	public String transactioReadOnlyWithPropagationRequiresNew() throws SystemException {
 		return (String) serviceRegistry.getNodeService().getProperty(null, ContentModel.PROP_NAME);
 	}
-}
+
+	@AlfrescoTransaction(maxRetries = 3, minRetryWaitMs = 10, retryWaitIncrementMs = 20, maxRetryWaitMs = 100,
+			extraExceptions = IllegalStateException.class)
+	public String transactionWithRetryPolicy() {
+		return (String) serviceRegistry.getNodeService().getProperty(null, ContentModel.PROP_NAME);
+	}
+
+	@AlfrescoTransaction(propagation = Propagation.SUPPORTS)
+	public String transactionSupports() {
+		return (String) serviceRegistry.getNodeService().getProperty(null, ContentModel.PROP_NAME);
+	}
+
+	@AlfrescoTransaction(propagation = Propagation.NOT_SUPPORTED)
+	public String transactionNotSupported() {
+		return (String) serviceRegistry.getNodeService().getProperty(null, ContentModel.PROP_NAME);
+	}
+
+	@AlfrescoTransaction(propagation = Propagation.MANDATORY)
+	public String transactionMandatory() {
+		return (String) serviceRegistry.getNodeService().getProperty(null, ContentModel.PROP_NAME);
+	}
+
+	@AlfrescoTransaction(propagation = Propagation.NEVER)
+	public String transactionNever() {
+		return (String) serviceRegistry.getNodeService().getProperty(null, ContentModel.PROP_NAME);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.benchmark;
+
+import java.util.Map;
+
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoRestResponse;
+
+/**
+ * the controller driven by {@link DispatcherWebscriptBenchmark}, every mapping
+ * stands for one shape of request that goes through the dispatcher webscript
+ */
+@Controller
+@RequestMapping("/bench")
+public class BenchmarkController {
+
+	@GetMapping("/get")
+	public ResponseEntity<?> get(@RequestParam String id) {
+		return ResponseEntity.ok(id);
+	}
+
+	@PostMapping("/post")
+	public ResponseEntity<?> post(@RequestBody Map<String, String> body) {
+		return ResponseEntity.ok(body);
+	}
+
+	@DeleteMapping("/delete")
+	public ResponseEntity<?> delete(@RequestParam String id) {
+		return ResponseEntity.ok(id);
+	}
+
+	@GetMapping("/noderef/{nodeRef}")
+	public ResponseEntity<NodeRef> noderef(@PathVariable NodeRef nodeRef) {
+		return ResponseEntity.ok(nodeRef);
+	}
+
+	@GetMapping("/regexp/{regexpchars:.+}")
+	public ResponseEntity<?> regexp(@PathVariable String regexpchars) {
+		return ResponseEntity.ok(regexpchars);
+	}
+
+	@GetMapping("/alfrescoResponse/{nodeRef}")
+	@AlfrescoRestResponse
+	public ResponseEntity<?> alfrescoResponse(@PathVariable NodeRef nodeRef) {
+		return ResponseEntity.ok(Map.of("id", nodeRef.getId(), "name", "benchmark.txt"));
+	}
+}
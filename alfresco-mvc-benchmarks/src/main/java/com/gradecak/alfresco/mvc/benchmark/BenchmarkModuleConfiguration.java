@@ -0,0 +1,64 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.rest.framework.webscripts.ResourceWebScriptHelper;
+import org.alfresco.service.namespace.NamespaceService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportResource;
+
+import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoDispatcherWebscript;
+import com.gradecak.alfresco.mvc.rest.annotation.EnableAlfrescoMvcRest;
+
+/**
+ * stands in for the Alfresco repository context: the services needed by
+ * {@link com.gradecak.alfresco.mvc.rest.config.DefaultAlfrescoMvcServletContextConfiguration}
+ * are stubbed the same way as in the alfresco-mvc-rest tests, except that the
+ * {@link ResourceWebScriptHelper} wraps the body in an <code>entry</code>
+ * envelope so that the serialized payload has the shape of an Alfresco REST
+ * response
+ */
+@Configuration
+@ImportResource("classpath:benchmark-restjsonmodule.xml")
+@EnableAlfrescoMvcRest(@AlfrescoDispatcherWebscript(servletContext = BenchmarkServletContext.class))
+public class BenchmarkModuleConfiguration {
+
+	@Bean(name = "NamespaceService")
+	public NamespaceService namespaceService() {
+		NamespaceService namespaceService = mock(NamespaceService.class);
+		when(namespaceService.getPrefixes(anyString())).thenReturn(List.of("cm"));
+		when(namespaceService.getNamespaceURI(anyString())).thenReturn(NamespaceService.CONTENT_MODEL_1_0_URI);
+		return namespaceService;
+	}
+
+	@Bean(name = "webscriptHelper")
+	public ResourceWebScriptHelper webscriptHelper() {
+		ResourceWebScriptHelper webscriptHelper = mock(ResourceWebScriptHelper.class);
+		when(webscriptHelper.processAdditionsToTheResponse(any(), any(), any(), any(), any()))
+				.thenAnswer(invocation -> Map.of("entry", invocation.getArgument(4)));
+		return webscriptHelper;
+	}
+}
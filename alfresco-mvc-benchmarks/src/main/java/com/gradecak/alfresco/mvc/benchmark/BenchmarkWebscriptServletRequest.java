@@ -0,0 +1,63 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+
+import org.springframework.extensions.webscripts.AbstractWebScript;
+import org.springframework.extensions.webscripts.Match;
+import org.springframework.extensions.webscripts.Runtime;
+import org.springframework.extensions.webscripts.servlet.WebScriptServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * in-process stand-in for the request handed over by the Alfresco webscript
+ * runtime, built the same way as the <code>MockWebscriptServletRequest</code>
+ * of the alfresco-mvc-rest tests
+ */
+public class BenchmarkWebscriptServletRequest extends WebScriptServletRequest {
+
+	public static final String WEBSCRIPT_URL = "/service/mvc/";
+
+	private static final Runtime RUNTIME = mock(Runtime.class);
+	private static final Map<String, String> TEMPLATE_VARS = Map.of("", "");
+
+	private BenchmarkWebscriptServletRequest(MockHttpServletRequest mockHttpServletRequest, Match match) {
+		super(RUNTIME, mockHttpServletRequest, match, null);
+	}
+
+	public static BenchmarkWebscriptServletRequest create(AbstractWebScript webScript, HttpMethod method,
+			String controllerMapping, Map<String, String> parameters, byte[] body) {
+		Match match = new Match(null, TEMPLATE_VARS, WEBSCRIPT_URL, webScript);
+		MockHttpServletRequest mockHttpServletRequest = new MockHttpServletRequest(method.name(),
+				"http://localhost/alfresco" + WEBSCRIPT_URL + controllerMapping);
+		mockHttpServletRequest.setServletPath("alfresco");
+		mockHttpServletRequest.setContextPath("http://localhost/");
+		mockHttpServletRequest.setContentType("application/json");
+		if (parameters != null) {
+			mockHttpServletRequest.setParameters(parameters);
+		}
+		if (body != null) {
+			mockHttpServletRequest.setContent(body);
+		}
+
+		return new BenchmarkWebscriptServletRequest(mockHttpServletRequest, match);
+	}
+}
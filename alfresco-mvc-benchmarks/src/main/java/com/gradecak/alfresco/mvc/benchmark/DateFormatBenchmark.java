@@ -0,0 +1,114 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.benchmark;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2DateFormat;
+
+/**
+ * writes and reads a node-like payload holding a few dates, with the
+ * {@link SimpleDateFormat} Jackson clones for each call compared to the
+ * {@link Jackson2DateFormat} whose clones share its formatters. Run with <code>-t 4</code> to see them under
+ * contention.
+ *
+ * <pre>
+ * mvn -pl alfresco-mvc-benchmarks -am package
+ * java -jar alfresco-mvc-benchmarks/target/benchmarks.jar DateFormatBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateFormatBenchmark {
+
+	private static final TypeReference<Map<String, Date>> DATES = new TypeReference<Map<String, Date>>() {
+	};
+
+	private ObjectMapper simpleDateFormatMapper;
+	private ObjectMapper jackson2DateFormatMapper;
+
+	private Map<String, Date> node;
+	private String json;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		SimpleDateFormat simpleDateFormat = new SimpleDateFormat(Jackson2DateFormat.DEFAULT_PATTERN);
+		simpleDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+		simpleDateFormatMapper = new ObjectMapper().setDateFormat(simpleDateFormat);
+		jackson2DateFormatMapper = new ObjectMapper().setDateFormat(new Jackson2DateFormat());
+
+		long now = System.currentTimeMillis();
+		node = new LinkedHashMap<>();
+		node.put("created", new Date(now - 86_400_000L));
+		node.put("modified", new Date(now));
+		node.put("accessed", new Date(now - 3_600_000L));
+		node.put("published", new Date(now - 7 * 86_400_000L));
+		node.put("from", new Date(now + 86_400_000L));
+		node.put("to", new Date(now + 30 * 86_400_000L));
+		json = jackson2DateFormatMapper.writeValueAsString(node);
+
+		// fail fast if both formats do not agree
+		if (!json.equals(simpleDateFormatMapper.writeValueAsString(node))) {
+			throw new IllegalStateException("the date formats write different dates");
+		}
+	}
+
+	@Benchmark
+	public String writeSimpleDateFormat() throws IOException {
+		return simpleDateFormatMapper.writeValueAsString(node);
+	}
+
+	@Benchmark
+	public String writeJackson2DateFormat() throws IOException {
+		return jackson2DateFormatMapper.writeValueAsString(node);
+	}
+
+	@Benchmark
+	public Map<String, Date> readSimpleDateFormat() throws IOException {
+		return simpleDateFormatMapper.readValue(json, DATES);
+	}
+
+	@Benchmark
+	public Map<String, Date> readJackson2DateFormat() throws IOException {
+		return jackson2DateFormatMapper.readValue(json, DATES);
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.benchmark;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.extensions.webscripts.Container;
+import org.springframework.extensions.webscripts.Description;
+import org.springframework.extensions.webscripts.SearchPath;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import com.gradecak.alfresco.mvc.webscript.DispatcherWebscript;
+
+/**
+ * drives {@link DispatcherWebscript#execute} end to end: request wrapping, the
+ * Spring MVC dispatch, argument conversion, the message converters and the
+ * {@link com.gradecak.alfresco.mvc.rest.AlfrescoApiResponseInterceptor}.
+ * <code>baseline</code> only builds the request and the response so that its
+ * score can be subtracted from the others.
+ *
+ * <pre>
+ * mvn -pl alfresco-mvc-benchmarks -am package
+ * java -jar alfresco-mvc-benchmarks/target/benchmarks.jar DispatcherWebscriptBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatcherWebscriptBenchmark {
+
+	private static final String NODE_ID = "0b8b4f6e-6a4c-4d4f-9f3a-3b6c2a1d9e01";
+
+	private static final Map<String, String> ID_PARAMETER = Map.of("id", NODE_ID);
+	private static final byte[] POST_BODY = ("{\"id\":\"" + NODE_ID + "\",\"name\":\"benchmark.txt\"}")
+			.getBytes(StandardCharsets.UTF_8);
+
+	private AnnotationConfigWebApplicationContext applicationContext;
+	private DispatcherWebscript webScript;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		applicationContext = new AnnotationConfigWebApplicationContext();
+		applicationContext.setServletContext(new MockServletContext());
+		applicationContext.register(BenchmarkModuleConfiguration.class);
+		applicationContext.refresh();
+
+		webScript = applicationContext.getBean(DispatcherWebscript.class);
+
+		Container container = mock(Container.class);
+		SearchPath searchPath = mock(SearchPath.class);
+		doReturn(false).when(searchPath).hasDocument(anyString());
+		doReturn(searchPath).when(container).getSearchPath();
+		webScript.init(container, mock(Description.class));
+
+		// fail fast instead of measuring error pages
+		assertOk(get());
+		assertOk(post());
+		assertOk(delete());
+		assertOk(pathVariable());
+		assertOk(dollarEncoded());
+		assertOk(dollarDecoded());
+		assertOk(alfrescoResponse());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		applicationContext.close();
+	}
+
+	@Benchmark
+	public Object baseline() {
+		BenchmarkWebscriptServletRequest request = BenchmarkWebscriptServletRequest.create(webScript, HttpMethod.GET,
+				"bench/get", ID_PARAMETER, null);
+		BenchmarkWebScriptResponse response = BenchmarkWebScriptResponse.create();
+		return new Object[] { request, response };
+	}
+
+	@Benchmark
+	public MockHttpServletResponse get() throws IOException {
+		return execute(HttpMethod.GET, "bench/get", ID_PARAMETER, null);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse post() throws IOException {
+		return execute(HttpMethod.POST, "bench/post", null, POST_BODY);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse delete() throws IOException {
+		return execute(HttpMethod.DELETE, "bench/delete", ID_PARAMETER, null);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse pathVariable() throws IOException {
+		return execute(HttpMethod.GET, "bench/noderef/" + NODE_ID, null, null);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse dollarEncoded() throws IOException {
+		return execute(HttpMethod.GET, "bench/regexp/abc%24def", null, null);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse dollarDecoded() throws IOException {
+		return execute(HttpMethod.GET, "bench/regexp/abc$def", null, null);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse alfrescoResponse() throws IOException {
+		return execute(HttpMethod.GET, "bench/alfrescoResponse/" + NODE_ID, null, null);
+	}
+
+	private MockHttpServletResponse execute(HttpMethod method, String controllerMapping,
+			Map<String, String> parameters, byte[] body) throws IOException {
+		BenchmarkWebScriptResponse response = BenchmarkWebScriptResponse.create();
+		webScript.execute(
+				BenchmarkWebscriptServletRequest.create(webScript, method, controllerMapping, parameters, body),
+				response);
+		return response.getMockHttpServletResponse();
+	}
+
+	private static void assertOk(MockHttpServletResponse response) {
+		if (response.getStatus() != HttpStatus.OK.value()) {
+			throw new IllegalStateException("benchmark request failed with status " + response.getStatus());
+		}
+	}
+}
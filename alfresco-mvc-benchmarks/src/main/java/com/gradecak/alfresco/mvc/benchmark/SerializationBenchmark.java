@@ -0,0 +1,126 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2DateFormat;
+
+/**
+ * writes and reads a listing of {@link BenchmarkNode} with the reflection based
+ * bean access compared to the accessors generated by the Blackbird module, as
+ * installed by <code>mvc.rest.jackson.accelerated</code>.
+ *
+ * <pre>
+ * mvn -pl alfresco-mvc-benchmarks -am package
+ * java -jar alfresco-mvc-benchmarks/target/benchmarks.jar SerializationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	private static final TypeReference<List<BenchmarkNode>> NODES = new TypeReference<List<BenchmarkNode>>() {
+	};
+
+	@Param({ "100" })
+	public int size;
+
+	private ObjectMapper reflectionMapper;
+	private ObjectMapper blackbirdMapper;
+
+	private List<BenchmarkNode> nodes;
+	private String json;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		reflectionMapper = new ObjectMapper().setDateFormat(new Jackson2DateFormat());
+		blackbirdMapper = new ObjectMapper().setDateFormat(new Jackson2DateFormat())
+				.registerModule(new BlackbirdModule());
+
+		String parentId = UUID.randomUUID().toString();
+		long now = System.currentTimeMillis();
+		nodes = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			BenchmarkNode node = new BenchmarkNode();
+			node.setId(UUID.randomUUID().toString());
+			node.setName("document-" + i + ".pdf");
+			node.setNodeType("cm:content");
+			node.setSize(1024L * i);
+			node.setMimeType("application/pdf");
+			node.setCreatedBy("admin");
+			node.setCreated(new Date(now - i * 60_000L));
+			node.setModifiedBy("admin");
+			node.setModified(new Date(now));
+			node.setParentId(parentId);
+			node.setAspectNames(List.of("cm:auditable", "cm:titled", "sys:referenceable"));
+			nodes.add(node);
+		}
+		json = reflectionMapper.writeValueAsString(nodes);
+
+		// fail fast if both mappers do not agree
+		if (!json.equals(blackbirdMapper.writeValueAsString(nodes))) {
+			throw new IllegalStateException("the mappers write different listings");
+		}
+	}
+
+	@Benchmark
+	public String writeReflection() throws IOException {
+		return reflectionMapper.writeValueAsString(nodes);
+	}
+
+	@Benchmark
+	public String writeBlackbird() throws IOException {
+		return blackbirdMapper.writeValueAsString(nodes);
+	}
+
+	@Benchmark
+	public List<BenchmarkNode> readReflection() throws IOException {
+		return reflectionMapper.readValue(json, NODES);
+	}
+
+	@Benchmark
+	public List<BenchmarkNode> readBlackbird() throws IOException {
+		return blackbirdMapper.readValue(json, NODES);
+	}
+}
@@ -16,8 +16,6 @@
 
 package com.gradecak.alfresco.mvc.rest;
 
-import javax.servlet.http.HttpServletRequest;
-
 import org.alfresco.rest.framework.resource.parameters.Params;
 import org.alfresco.rest.framework.resource.parameters.Params.RecognizedParams;
 import org.alfresco.rest.framework.webscripts.ResourceWebScriptHelper;
@@ -26,14 +24,16 @@ import org.springframework.extensions.webscripts.WebScriptRequest;
 import org.springframework.extensions.webscripts.servlet.WebScriptServletRequest;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import org.springframework.web.util.WebUtils;
 
 import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoRestResponse;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2StreamingHttpMessageConverter;
 import com.gradecak.alfresco.mvc.webscript.DispatcherWebscript.WebscriptRequestWrapper;
 
 /**
@@ -67,21 +67,31 @@ public class AlfrescoApiResponseInterceptor implements ResponseBodyAdvice<Object
 					"the request must be an instance of org.springframework.http.server.ServletServerHttpRequest");
 		}
 
-		HttpServletRequest r = ((ServletServerHttpRequest) request).getServletRequest();
+		// a multipart request is wrapped by the multipart resolver
+		WebscriptRequestWrapper r = WebUtils.getNativeRequest(
+				((ServletServerHttpRequest) request).getServletRequest(), WebscriptRequestWrapper.class);
 
-		if (!(r instanceof WebscriptRequestWrapper)) {
+		if (r == null) {
 			throw new RuntimeException(
 					"the request must be an instance of com.gradecak.alfresco.mvc.webscript.DispatcherWebscript.WebscriptRequestWrapper. It seems the request is not coming from Alfresco @MVC");
 		}
 
-		WebScriptServletRequest a = ((WebscriptRequestWrapper) r).getWebScriptServletRequest();
+		if (Jackson2StreamingHttpMessageConverter.class.isAssignableFrom(selectedConverterType)) {
+			// the envelope is written by the converter as the elements are streamed
+			return body == null || body instanceof Jackson2StreamingHttpMessageConverter.ListEntries ? body
+					: new Jackson2StreamingHttpMessageConverter.ListEntries(body);
+		}
+
+		WebScriptServletRequest a = r.getWebScriptServletRequest();
 
 		return webscriptHelper.processAdditionsToTheResponse(null, null, null, getDefaultParameters(a), body);
 	}
 
 	@Override
 	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
-		if (converterType.isAssignableFrom(MappingJackson2HttpMessageConverter.class)) {
+		// any Jackson format, JSON as well as the binary Smile and CBOR
+		if (AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType)
+				|| Jackson2StreamingHttpMessageConverter.class.isAssignableFrom(converterType)) {
 			boolean useAlfrescoResponse = globalAlfrescoResponse;
 
 			if (!useAlfrescoResponse) {
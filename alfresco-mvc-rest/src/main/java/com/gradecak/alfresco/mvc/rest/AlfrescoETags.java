@@ -0,0 +1,114 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoIfMatch;
+
+/**
+ * weak entity tags and last modifications of nodes for conditional requests. A
+ * handler checks them before building its response, the response is then not
+ * serialized at all when the client is up to date:
+ * 
+ * <pre>
+ * if (webRequest.checkNotModified(AlfrescoETags.forNodes(nodeService, nodeRef))) {
+ * 	return null;
+ * }
+ * </pre>
+ */
+public final class AlfrescoETags {
+
+	private AlfrescoETags() {
+	}
+
+	/**
+	 * @return a weak entity tag which changes with any change of the nodes, it is
+	 *         derived from the transaction which last changed each of them
+	 */
+	public static String forNodes(NodeService nodeService, NodeRef... nodeRefs) {
+		Assert.notNull(nodeService, "nodeService must not be null!");
+		StringBuilder value = new StringBuilder();
+		for (NodeRef nodeRef : nodeRefs) {
+			NodeRef.Status status = nodeService.getNodeStatus(nodeRef);
+			value.append(nodeRef).append(':');
+			if (status == null) {
+				value.append("missing");
+			} else {
+				value.append(status.getDbId()).append(':').append(status.getDbTxnId()).append(':')
+						.append(status.isDeleted());
+			}
+			value.append(';');
+		}
+		return of(value.toString());
+	}
+
+	/**
+	 * @return the most recent <code>cm:modified</code> of the nodes in
+	 *         milliseconds, -1 if none of them has one
+	 */
+	public static long lastModified(NodeService nodeService, NodeRef... nodeRefs) {
+		Assert.notNull(nodeService, "nodeService must not be null!");
+		long lastModified = -1;
+		for (NodeRef nodeRef : nodeRefs) {
+			Serializable modified = nodeService.getProperty(nodeRef, ContentModel.PROP_MODIFIED);
+			if (modified instanceof Date) {
+				lastModified = Math.max(lastModified, ((Date) modified).getTime());
+			}
+		}
+		return lastModified;
+	}
+
+	/**
+	 * @return the strong entity tag of the node compared by
+	 *         {@link AlfrescoIfMatch}, <code>null</code> if the node does not
+	 *         exist or has no such token
+	 */
+	public static String forNode(NodeService nodeService, NodeRef nodeRef, AlfrescoIfMatch.Token token) {
+		Assert.notNull(nodeService, "nodeService must not be null!");
+		Assert.notNull(token, "token must not be null!");
+		Serializable value;
+		if (token == AlfrescoIfMatch.Token.TRANSACTION) {
+			NodeRef.Status status = nodeService.getNodeStatus(nodeRef);
+			value = status != null && !status.isDeleted() ? status.getDbTxnId() : null;
+		} else if (!nodeService.exists(nodeRef)) {
+			value = null;
+		} else if (token == AlfrescoIfMatch.Token.VERSION_LABEL) {
+			value = nodeService.getProperty(nodeRef, ContentModel.PROP_VERSION_LABEL);
+		} else {
+			Serializable modified = nodeService.getProperty(nodeRef, ContentModel.PROP_MODIFIED);
+			value = modified instanceof Date ? ((Date) modified).getTime() : null;
+		}
+		return value != null ? "\"" + value + "\"" : null;
+	}
+
+	/**
+	 * @return a weak entity tag hashing the value
+	 */
+	public static String of(String value) {
+		Assert.notNull(value, "value must not be null!");
+		return "W/\"" + DigestUtils.md5DigestAsHex(value.getBytes(StandardCharsets.UTF_8)) + "\"";
+	}
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * the Cache-Control header of the responses of a handler, it replaces the one
+ * of the dispatcher webscript, see {@link AlfrescoDispatcherWebscript#cacheControl()}.
+ * The method annotation takes precedence over the class one.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AlfrescoCacheControl {
+
+	/**
+	 * the max-age directive in seconds, ignored if negative
+	 */
+	long maxAge() default -1;
+
+	boolean noCache() default false;
+
+	boolean noStore() default false;
+
+	boolean mustRevalidate() default false;
+
+	boolean cachePublic() default false;
+
+	boolean cachePrivate() default false;
+}
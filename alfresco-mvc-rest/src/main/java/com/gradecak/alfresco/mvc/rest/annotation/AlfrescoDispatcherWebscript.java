@@ -49,4 +49,53 @@ public @interface AlfrescoDispatcherWebscript {
 	boolean inheritGlobalProperties() default false;
 
 	ServletConfigOptions[] servletConfigOptions() default {};
+
+	/**
+	 * the Cache-Control header of all the responses, none if empty. A handler
+	 * might set its own, see {@link AlfrescoCacheControl}.
+	 */
+	String cacheControl() default "no-cache";
+
+	/**
+	 * <code>true</code> to add a weak ETag hashing the body of the successful GET
+	 * responses and to answer the matching conditional requests with a
+	 * <code>304 Not Modified</code>.
+	 */
+	boolean shallowEtag() default false;
+
+	/**
+	 * <code>true</code> to compress the responses with gzip or deflate, as
+	 * negotiated through the Accept-Encoding header
+	 */
+	boolean compression() default false;
+
+	/**
+	 * the minimum size in bytes of a compressed response body
+	 */
+	int compressionMinSize() default 2048;
+
+	/**
+	 * the MIME types of the compressed responses, wildcards are allowed
+	 */
+	String[] compressionMimeTypes() default { "text/*", "application/json", "application/*+json",
+			"application/x-ndjson", "application/xml", "application/*+xml", "application/javascript" };
+
+	/**
+	 * <code>true</code> to decompress the request bodies sent with a gzip or
+	 * deflate Content-Encoding
+	 */
+	boolean requestDecompression() default false;
+
+	/**
+	 * the maximum size in bytes of a decompressed request body, a bigger one is
+	 * answered with a <code>413 Payload Too Large</code>. No limit if negative.
+	 */
+	long requestDecompressionMaxSize() default 10L * 1024 * 1024;
+
+	/**
+	 * <code>true</code> to let the handlers return a Callable, a
+	 * CompletableFuture or a DeferredResult. The container thread is not
+	 * released, it waits for the result while holding the webscript transaction.
+	 */
+	boolean async() default false;
 }
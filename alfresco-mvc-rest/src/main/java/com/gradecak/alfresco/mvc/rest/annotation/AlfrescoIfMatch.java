@@ -0,0 +1,57 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * checks the If-Match header of the request against the version token of a
+ * node before the handler runs. A request which does not match is answered with
+ * a <code>412 Precondition Failed</code> and a request without the header with a
+ * <code>428 Precondition Required</code> if the header is required, a request
+ * without a valid node id with a <code>400 Bad Request</code>. The entity
+ * tag to be sent to the clients is given by
+ * {@link com.gradecak.alfresco.mvc.rest.AlfrescoETags#forNode}.
+ */
+@Target({ ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AlfrescoIfMatch {
+
+	/**
+	 * the name of the path variable or of the request parameter holding the node
+	 * reference or the node id
+	 */
+	String value() default "nodeRef";
+
+	boolean required() default false;
+
+	Token token() default Token.MODIFIED;
+
+	public static enum Token {
+		/** the <code>cm:modified</code> date */
+		MODIFIED,
+		/** the <code>cm:versionLabel</code>, the node must be versionable */
+		VERSION_LABEL,
+		/** the id of the transaction which last changed the node */
+		TRANSACTION
+	}
+}
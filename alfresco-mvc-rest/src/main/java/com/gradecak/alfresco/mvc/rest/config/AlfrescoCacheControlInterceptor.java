@@ -0,0 +1,87 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.config;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoCacheControl;
+
+/**
+ * sets the Cache-Control header of the handlers annotated with
+ * {@link AlfrescoCacheControl}, the header is resolved once per handler method
+ */
+public class AlfrescoCacheControlInterceptor implements HandlerInterceptor {
+
+	private final Map<Method, Optional<String>> cacheControls = new ConcurrentHashMap<>();
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod) {
+			HandlerMethod handlerMethod = (HandlerMethod) handler;
+			cacheControls.computeIfAbsent(handlerMethod.getMethod(), method -> resolveCacheControl(handlerMethod))
+					.ifPresent(cacheControl -> response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl));
+		}
+		return true;
+	}
+
+	private static Optional<String> resolveCacheControl(HandlerMethod handlerMethod) {
+		AlfrescoCacheControl annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(),
+				AlfrescoCacheControl.class);
+		if (annotation == null) {
+			annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(),
+					AlfrescoCacheControl.class);
+		}
+		if (annotation == null) {
+			return Optional.empty();
+		}
+
+		CacheControl cacheControl;
+		if (annotation.noStore()) {
+			cacheControl = CacheControl.noStore();
+		} else if (annotation.noCache()) {
+			cacheControl = CacheControl.noCache();
+		} else if (annotation.maxAge() >= 0) {
+			cacheControl = CacheControl.maxAge(annotation.maxAge(), TimeUnit.SECONDS);
+		} else {
+			cacheControl = CacheControl.empty();
+		}
+
+		if (annotation.mustRevalidate()) {
+			cacheControl = cacheControl.mustRevalidate();
+		}
+		if (annotation.cachePublic()) {
+			cacheControl = cacheControl.cachePublic();
+		}
+		if (annotation.cachePrivate()) {
+			cacheControl = cacheControl.cachePrivate();
+		}
+		return Optional.ofNullable(cacheControl.getHeaderValue());
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.config;
+
+import org.alfresco.repo.tenant.TenantContextHolder;
+import org.springframework.core.task.TaskDecorator;
+
+import com.gradecak.alfresco.mvc.aop.AlfrescoSecurityContext;
+
+/**
+ * runs the asynchronous request processing with the Alfresco identity of the
+ * request, the {@link AlfrescoSecurityContext} and the tenant. The identity of
+ * the worker thread is restored afterwards.
+ */
+public class AlfrescoContextTaskDecorator implements TaskDecorator {
+
+	@Override
+	public Runnable decorate(final Runnable runnable) {
+		final AlfrescoSecurityContext securityContext = AlfrescoSecurityContext.capture();
+		final String tenantDomain = TenantContextHolder.getTenantDomain();
+
+		return () -> {
+			final String previousTenantDomain = TenantContextHolder.getTenantDomain();
+			try {
+				setTenantDomain(tenantDomain);
+				securityContext.runWith(() -> {
+					runnable.run();
+					return null;
+				});
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				// runnable.run() does not throw checked exceptions
+				throw new IllegalStateException(e);
+			} finally {
+				setTenantDomain(previousTenantDomain);
+			}
+		};
+	}
+
+	private static void setTenantDomain(final String tenantDomain) {
+		if (tenantDomain != null) {
+			TenantContextHolder.setTenantDomain(tenantDomain);
+		} else {
+			TenantContextHolder.clearTenantContext();
+		}
+	}
+}
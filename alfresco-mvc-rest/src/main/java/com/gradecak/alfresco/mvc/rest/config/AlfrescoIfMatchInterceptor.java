@@ -0,0 +1,116 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.config;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.alfresco.service.ServiceRegistry;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.util.Assert;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.gradecak.alfresco.mvc.rest.AlfrescoETags;
+import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoIfMatch;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2NodeRefDeserializer;
+
+/**
+ * rejects the requests to the handlers annotated with {@link AlfrescoIfMatch}
+ * whose If-Match header does not match the node, before the handler, and its
+ * transaction, starts
+ */
+public class AlfrescoIfMatchInterceptor implements HandlerInterceptor {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AlfrescoIfMatchInterceptor.class);
+
+	private final ServiceRegistry serviceRegistry;
+	private final Jackson2NodeRefDeserializer nodeRefConverter = new Jackson2NodeRefDeserializer();
+
+	public AlfrescoIfMatchInterceptor(ServiceRegistry serviceRegistry) {
+		Assert.notNull(serviceRegistry, "serviceRegistry must not be null!");
+		this.serviceRegistry = serviceRegistry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (!(handler instanceof HandlerMethod)) {
+			return true;
+		}
+		AlfrescoIfMatch ifMatch = ((HandlerMethod) handler).getMethodAnnotation(AlfrescoIfMatch.class);
+		if (ifMatch == null) {
+			return true;
+		}
+
+		List<String> expectedETags = new ServletServerHttpRequest(request).getHeaders().getIfMatch();
+		if (expectedETags.isEmpty()) {
+			if (ifMatch.required()) {
+				response.setStatus(HttpStatus.PRECONDITION_REQUIRED.value());
+				return false;
+			}
+			return true;
+		}
+
+		NodeRef nodeRef = getNodeRef(request, ifMatch.value());
+		if (nodeRef == null) {
+			response.setStatus(HttpStatus.BAD_REQUEST.value());
+			return false;
+		}
+
+		String currentETag = AlfrescoETags.forNode(serviceRegistry.getNodeService(), nodeRef, ifMatch.token());
+		if (currentETag != null && (expectedETags.contains("*") || expectedETags.contains(currentETag))) {
+			return true;
+		}
+
+		if (currentETag != null) {
+			response.setHeader(HttpHeaders.ETAG, currentETag);
+		}
+		response.setStatus(HttpStatus.PRECONDITION_FAILED.value());
+		return false;
+	}
+
+	/**
+	 * @return <code>null</code> if the node id is missing or invalid
+	 */
+	private NodeRef getNodeRef(HttpServletRequest request, String name) {
+		try {
+			return nodeRefConverter.convert(getNodeId(request, name));
+		} catch (RuntimeException e) {
+			LOGGER.debug("invalid node id in the path variable or the parameter {}", name, e);
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static String getNodeId(HttpServletRequest request, String name) {
+		Map<String, String> pathVariables = (Map<String, String>) request
+				.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		if (pathVariables != null && pathVariables.containsKey(name)) {
+			return pathVariables.get(name);
+		}
+		return request.getParameter(name);
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.rest.config;
+
+import java.nio.charset.Charset;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.gradecak.alfresco.mvc.rest.multipart.AlfrescoMultipartStream;
+
+/**
+ * resolves the {@link AlfrescoMultipartStream} arguments. It relies on the
+ * multipart resolver resolving the requests lazily, the body is otherwise
+ * consumed before the handler is invoked.
+ */
+public class AlfrescoMultipartStreamArgumentResolver implements HandlerMethodArgumentResolver {
+
+	private final long maxPartSize;
+	private final long maxSize;
+	private final Charset charset;
+
+	public AlfrescoMultipartStreamArgumentResolver(final long maxPartSize, final long maxSize,
+			final Charset charset) {
+		Assert.notNull(charset, "charset must not be null!");
+		this.maxPartSize = maxPartSize;
+		this.maxSize = maxSize;
+		this.charset = charset;
+	}
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return AlfrescoMultipartStream.class.equals(parameter.getParameterType());
+	}
+
+	@Override
+	public AlfrescoMultipartStream resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+		HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+		Assert.state(request != null, "No HttpServletRequest");
+		return AlfrescoMultipartStream.parse(request, maxPartSize, maxSize, charset);
+	}
+}
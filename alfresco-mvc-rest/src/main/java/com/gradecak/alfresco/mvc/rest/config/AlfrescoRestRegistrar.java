@@ -81,6 +81,14 @@ public class AlfrescoRestRegistrar implements ImportBeanDefinitionRegistrar {
 				.getClass("servletContextClass");
 		HttpMethod[] httpMethods = (HttpMethod[]) webscriptAttributes.get("httpMethods");
 		boolean inheritGlobalProperties = (Boolean) webscriptAttributes.get("inheritGlobalProperties");
+		String cacheControl = webscriptAttributes.getString("cacheControl");
+		boolean shallowEtag = webscriptAttributes.getBoolean("shallowEtag");
+		boolean compression = webscriptAttributes.getBoolean("compression");
+		int compressionMinSize = webscriptAttributes.getNumber("compressionMinSize");
+		String[] compressionMimeTypes = webscriptAttributes.getStringArray("compressionMimeTypes");
+		boolean requestDecompression = webscriptAttributes.getBoolean("requestDecompression");
+		long requestDecompressionMaxSize = webscriptAttributes.getNumber("requestDecompressionMaxSize");
+		boolean async = webscriptAttributes.getBoolean("async");
 
 		GenericBeanDefinition beanDefinition = new GenericBeanDefinition();
 		beanDefinition.setBeanClass(DispatcherWebscript.class);
@@ -89,6 +97,14 @@ public class AlfrescoRestRegistrar implements ImportBeanDefinitionRegistrar {
 		ws.setContextClass(servletContextClass);
 		ws.setContextConfigLocation(servletContext.getName());
 		ws.addServletConfigOptions(servletConfigOptions);
+		ws.setCacheControl(cacheControl);
+		ws.setShallowEtag(shallowEtag);
+		ws.setCompressionMinSize(compressionMinSize);
+		ws.setCompressionMimeTypes(compressionMimeTypes);
+		ws.setCompression(compression);
+		ws.setRequestDecompression(requestDecompression);
+		ws.setRequestDecompressionMaxSize(requestDecompressionMaxSize);
+		ws.setAsync(async);
 		beanDefinition.setInstanceSupplier(() -> ws);
 		beanDefinition.setRole(BeanDefinition.ROLE_APPLICATION);
 
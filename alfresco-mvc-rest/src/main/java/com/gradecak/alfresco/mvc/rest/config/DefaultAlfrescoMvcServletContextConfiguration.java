@@ -16,52 +16,116 @@
 
 package com.gradecak.alfresco.mvc.rest.config;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.TimeZone;
 
+import org.alfresco.repo.dictionary.DictionaryDAO;
 import org.alfresco.rest.framework.jacksonextensions.RestJsonModule;
 import org.alfresco.rest.framework.webscripts.ResourceWebScriptHelper;
+import org.alfresco.service.ServiceRegistry;
 import org.alfresco.service.namespace.NamespaceService;
+import org.alfresco.service.namespace.QName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.EnvironmentAware;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
 import org.springframework.format.FormatterRegistry;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.ResourceHttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.multipart.commons.CommonsMultipartResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.gradecak.alfresco.mvc.rest.AlfrescoApiResponseInterceptor;
+import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoIfMatch;
+import com.gradecak.alfresco.mvc.rest.content.ContentRangeAdvice;
+import com.gradecak.alfresco.mvc.rest.content.ContentReaderHttpMessageConverter;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2DateFormat;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2JavaTimeModule;
 import com.gradecak.alfresco.mvc.rest.jackson.Jackson2NodeRefDeserializer;
 import com.gradecak.alfresco.mvc.rest.jackson.Jackson2NodeRefSerializer;
 import com.gradecak.alfresco.mvc.rest.jackson.Jackson2QnameDeserializer;
 import com.gradecak.alfresco.mvc.rest.jackson.Jackson2QnameSerializer;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2StreamingHttpMessageConverter;
 
 @Configuration
-public class DefaultAlfrescoMvcServletContextConfiguration implements WebMvcConfigurer {
+public class DefaultAlfrescoMvcServletContextConfiguration implements WebMvcConfigurer, EnvironmentAware {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DefaultAlfrescoMvcServletContextConfiguration.class);
+
+	// in order of preference, Blackbird replaces Afterburner on the recent JVMs
+	private static final String[] ACCELERATION_MODULES = { "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+			"com.fasterxml.jackson.module.afterburner.AfterburnerModule" };
+
+	private static final String JACKSON2_SMILE_FACTORY = "com.fasterxml.jackson.dataformat.smile.SmileFactory";
+	private static final String JACKSON2_CBOR_FACTORY = "com.fasterxml.jackson.dataformat.cbor.CBORFactory";
 
 	private final RestJsonModule alfrescoRestJsonModule;
 	private final NamespaceService namespaceService;
+	private final ObjectProvider<ServiceRegistry> serviceRegistry;
+	private Environment environment;
 
-	@Autowired
 	public DefaultAlfrescoMvcServletContextConfiguration(RestJsonModule alfrescoRestJsonModule,
 			NamespaceService namespaceService) {
+		this(alfrescoRestJsonModule, namespaceService, null);
+	}
+
+	/**
+	 * the {@link ServiceRegistry} is optional, {@link AlfrescoIfMatch} is not
+	 * supported without it
+	 */
+	@Autowired
+	public DefaultAlfrescoMvcServletContextConfiguration(RestJsonModule alfrescoRestJsonModule,
+			NamespaceService namespaceService, ObjectProvider<ServiceRegistry> serviceRegistry) {
 		this.alfrescoRestJsonModule = alfrescoRestJsonModule;
 		this.namespaceService = namespaceService;
+		this.serviceRegistry = serviceRegistry;
+	}
+
+	@Override
+	public void setEnvironment(Environment environment) {
+		this.environment = environment;
 	}
 
 	@Override
 	public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
 		resolvers.add(new ParamsHandlerMethodArgumentResolver());
+		resolvers.add(new AlfrescoMultipartStreamArgumentResolver(getMultipartMaxPartSize(), getMultipartMaxSize(),
+				StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new AlfrescoCacheControlInterceptor());
+
+		ServiceRegistry alfrescoServiceRegistry = serviceRegistry != null ? serviceRegistry.getIfUnique() : null;
+		if (alfrescoServiceRegistry != null) {
+			registry.addInterceptor(new AlfrescoIfMatchInterceptor(alfrescoServiceRegistry));
+		}
 	}
 
 	@Bean
@@ -69,30 +133,108 @@ public class DefaultAlfrescoMvcServletContextConfiguration implements WebMvcConf
 		return new AlfrescoApiResponseInterceptor(webscriptHelper);
 	}
 
+	@Bean
+	public ContentRangeAdvice contentRangeAdvice() {
+		return new ContentRangeAdvice();
+	}
+
+	/**
+	 * the requests are resolved lazily, on the first access to a multipart
+	 * parameter or file, so that the handlers taking an
+	 * {@link com.gradecak.alfresco.mvc.rest.multipart.AlfrescoMultipartStream}
+	 * read the parts as they arrive
+	 */
 	@Bean
 	public CommonsMultipartResolver multipartResolver() {
 		final CommonsMultipartResolver resolver = new CommonsMultipartResolver();
-		resolver.setMaxUploadSize(-1);
+		resolver.setMaxUploadSize(getMultipartMaxSize());
+		resolver.setMaxUploadSizePerFile(getMultipartMaxPartSize());
 		resolver.setDefaultEncoding("utf-8");
+		resolver.setResolveLazily(true);
 		configureMultipartResolver(resolver);
 		return resolver;
 	}
 
+	private long getMultipartMaxSize() {
+		return environment.getProperty("mvc.rest.multipart.maxSize", Long.class, -1L);
+	}
+
+	private long getMultipartMaxPartSize() {
+		return environment.getProperty("mvc.rest.multipart.maxPartSize", Long.class, -1L);
+	}
+
 	private void configureMultipartResolver(final CommonsMultipartResolver resolver) {
 	}
 
+	/**
+	 * <code>mvc.rest.jackson.accelerated</code> replaces the reflection based
+	 * property access of the beans by generated accessors, see
+	 * {@link #accelerationModule()}
+	 */
 	@Bean
 	@Primary
 	public ObjectMapper objectMapper() {
-		DateFormat DATE_FORMAT_ISO8601 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
-		DATE_FORMAT_ISO8601.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return configureObjectMapper(Jackson2ObjectMapperBuilder.json()).build();
+	}
 
-		return Jackson2ObjectMapperBuilder.json().failOnEmptyBeans(false).failOnUnknownProperties(false)
-				.dateFormat(DATE_FORMAT_ISO8601).modulesToInstall(alfrescoRestJsonModule)
+	/**
+	 * the modules, serializers and date format shared by the JSON and the binary
+	 * object mappers. <code>mvc.rest.jackson.javaTimeDateFormat</code> writes
+	 * and reads the <code>java.time</code> instants with the date format too,
+	 * instead of the ISO-8601 format of the Jackson JavaTimeModule.
+	 */
+	private Jackson2ObjectMapperBuilder configureObjectMapper(Jackson2ObjectMapperBuilder builder) {
+		List<Module> modules = new ArrayList<>(List.of(alfrescoRestJsonModule, qnameKeyModule()));
+		if (environment.getProperty("mvc.rest.jackson.javaTimeDateFormat", Boolean.class, false)) {
+			// installed after the modules found by the service loader so that it takes
+			// precedence over the Jackson JavaTimeModule
+			modules.add(new Jackson2JavaTimeModule(jackson2DateFormat()));
+		}
+		if (environment.getProperty("mvc.rest.jackson.accelerated", Boolean.class, false)) {
+			Module accelerationModule = accelerationModule();
+			if (accelerationModule != null) {
+				modules.add(accelerationModule);
+			}
+		}
+
+		return builder.failOnEmptyBeans(false).failOnUnknownProperties(false).dateFormat(jackson2DateFormat())
+				.modulesToInstall(modules.toArray(new Module[0]))
 				.serializers(jackson2NodeRefSerializer(), jackson2QnameSerializer())
 				.deserializers(jackson2NodeRefDeserializer(), jackson2QnameDeserializer())
-				.featuresToEnable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY).findModulesViaServiceLoader(true)
-				.build();
+				.featuresToEnable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY).findModulesViaServiceLoader(true);
+	}
+
+	/**
+	 * the Jackson Blackbird module, generating the accessors with the
+	 * LambdaMetafactory, or else the Afterburner one, generating them with
+	 * bytecode, whichever is on the classpath. Both leave the properties they
+	 * cannot optimize, and the custom serializers, to the reflection based
+	 * access.
+	 * 
+	 * @return <code>null</code> if none of them can be installed
+	 */
+	private Module accelerationModule() {
+		ClassLoader classLoader = getClass().getClassLoader();
+		for (String className : ACCELERATION_MODULES) {
+			if (ClassUtils.isPresent(className, classLoader)) {
+				try {
+					return (Module) BeanUtils.instantiateClass(ClassUtils.forName(className, classLoader));
+				} catch (ClassNotFoundException | BeanInstantiationException | LinkageError e) {
+					LOGGER.warn("Could not install the Jackson module " + className, e);
+				}
+			}
+		}
+
+		LOGGER.warn("mvc.rest.jackson.accelerated is set but neither jackson-module-blackbird nor "
+				+ "jackson-module-afterburner could be installed, the serialization stays reflection based");
+		return null;
+	}
+
+	private SimpleModule qnameKeyModule() {
+		SimpleModule module = new SimpleModule("alfresco-mvc-qname-keys");
+		module.addKeySerializer(QName.class, jackson2QnameSerializer().getKeySerializer());
+		module.addKeyDeserializer(QName.class, jackson2QnameDeserializer().getKeyDeserializer());
+		return module;
 	}
 
 	@Override
@@ -104,13 +246,86 @@ public class DefaultAlfrescoMvcServletContextConfiguration implements WebMvcConf
 	@Override
 	public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
 		converters.add(new ResourceHttpMessageConverter());
+		converters.add(new ContentReaderHttpMessageConverter());
 		converters.add(new StringHttpMessageConverter());
+		// before the Jackson converter which would buffer the whole stream
+		converters.add(new Jackson2StreamingHttpMessageConverter(objectMapper()));
 		converters.add(new MappingJackson2HttpMessageConverter(objectMapper()));
+		// after the JSON converter which stays the default
+		if (isBinaryFormatEnabled("mvc.rest.jackson.smile", JACKSON2_SMILE_FACTORY)) {
+			converters.add(new MappingJackson2SmileHttpMessageConverter(
+					configureObjectMapper(Jackson2ObjectMapperBuilder.smile()).build()));
+		}
+		if (isBinaryFormatEnabled("mvc.rest.jackson.cbor", JACKSON2_CBOR_FACTORY)) {
+			converters.add(new MappingJackson2CborHttpMessageConverter(
+					configureObjectMapper(Jackson2ObjectMapperBuilder.cbor()).build()));
+		}
+	}
+
+	/**
+	 * <code>mvc.rest.jackson.smile</code> and <code>mvc.rest.jackson.cbor</code>
+	 * add the Smile (<code>application/x-jackson-smile</code>) and the CBOR
+	 * (<code>application/cbor</code>) converters, selected by the
+	 * <code>Accept</code> and <code>Content-Type</code> headers. Each needs its
+	 * <code>jackson-dataformat</code> on the classpath.
+	 */
+	private boolean isBinaryFormatEnabled(String property, String factoryClassName) {
+		if (!environment.getProperty(property, Boolean.class, false)) {
+			return false;
+		}
+		if (!ClassUtils.isPresent(factoryClassName, getClass().getClassLoader())) {
+			LOGGER.warn(property + " is set but " + factoryClassName + " is not on the classpath, the format is disabled");
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(alfrescoMvcAsyncTaskExecutor());
+		configurer.setDefaultTimeout(environment.getProperty("mvc.rest.async.timeout", Long.class, 30000L));
+	}
+
+	/**
+	 * the bounded executor of the Callable handlers, the requests are rejected
+	 * once the queue is full
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor alfrescoMvcAsyncTaskExecutor() {
+		return createAsyncTaskExecutor(environment);
+	}
+
+	/**
+	 * creates the bounded executor of the asynchronous processing configured with
+	 * the <code>mvc.rest.async.*</code> properties, it has to be initialized
+	 */
+	public static ThreadPoolTaskExecutor createAsyncTaskExecutor(PropertyResolver environment) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(environment.getProperty("mvc.rest.async.corePoolSize", Integer.class, 4));
+		executor.setMaxPoolSize(environment.getProperty("mvc.rest.async.maxPoolSize", Integer.class, 16));
+		executor.setQueueCapacity(environment.getProperty("mvc.rest.async.queueCapacity", Integer.class, 100));
+		executor.setThreadNamePrefix("alfresco-mvc-async-");
+		executor.setTaskDecorator(new AlfrescoContextTaskDecorator());
+		return executor;
+	}
+
+	/**
+	 * the format of the {@link java.util.Date} and {@link java.util.Calendar}
+	 * values, <code>mvc.rest.jackson.datePattern</code> and
+	 * <code>mvc.rest.jackson.timeZone</code> change the default
+	 * <code>yyyy-MM-dd'T'HH:mm:ss.SSSZ</code> in UTC
+	 */
+	@Bean
+	Jackson2DateFormat jackson2DateFormat() {
+		String pattern = environment.getProperty("mvc.rest.jackson.datePattern", Jackson2DateFormat.DEFAULT_PATTERN);
+		String timeZone = environment.getProperty("mvc.rest.jackson.timeZone", Jackson2DateFormat.DEFAULT_ZONE.getId());
+		return new Jackson2DateFormat(pattern, ZoneId.of(timeZone));
 	}
 
 	@Bean
 	Jackson2NodeRefDeserializer jackson2NodeRefDeserializer() {
-		return new Jackson2NodeRefDeserializer();
+		return new Jackson2NodeRefDeserializer(
+				environment.getProperty("mvc.rest.jackson.nodeRefCacheSize", Integer.class, 0));
 	}
 
 	@Bean
@@ -123,9 +338,26 @@ public class DefaultAlfrescoMvcServletContextConfiguration implements WebMvcConf
 		return new Jackson2NodeRefSerializer();
 	}
 
+	/**
+	 * <code>mvc.rest.jackson.qnamePrefixed</code> writes the QNames in their
+	 * prefixed form
+	 */
 	@Bean
 	Jackson2QnameSerializer jackson2QnameSerializer() {
-		return new Jackson2QnameSerializer(namespaceService);
+		return new Jackson2QnameSerializer(namespaceService,
+				environment.getProperty("mvc.rest.jackson.qnamePrefixed", Boolean.class, false));
+	}
+
+	/**
+	 * clears the names cached by the QName serializer and deserializer each time
+	 * the dictionary is reloaded
+	 */
+	@Bean
+	SmartInitializingSingleton jackson2QnameDictionaryListeners(ObjectProvider<DictionaryDAO> dictionaryDAO) {
+		return () -> dictionaryDAO.ifUnique(dao -> {
+			dao.registerListener(jackson2QnameSerializer().getDictionaryListener());
+			dao.registerListener(jackson2QnameDeserializer().getDictionaryListener());
+		});
 	}
 
 }
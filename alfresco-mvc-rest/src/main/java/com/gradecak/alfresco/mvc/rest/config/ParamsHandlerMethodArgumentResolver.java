@@ -37,10 +37,9 @@ public class ParamsHandlerMethodArgumentResolver implements HandlerMethodArgumen
 	@Override
 	public Params resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
 			NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
-		Object nativeRequest = webRequest.getNativeRequest();
-		if (nativeRequest instanceof WebscriptRequestWrapper) {
-			WebScriptServletRequest webScriptServletRequest = ((WebscriptRequestWrapper) nativeRequest)
-					.getWebScriptServletRequest();
+		WebscriptRequestWrapper nativeRequest = webRequest.getNativeRequest(WebscriptRequestWrapper.class);
+		if (nativeRequest != null) {
+			WebScriptServletRequest webScriptServletRequest = nativeRequest.getWebScriptServletRequest();
 			return AlfrescoApiResponseInterceptor.getDefaultParameters(webScriptServletRequest);
 		}
 		return AlfrescoApiResponseInterceptor.getDefaultParameters(null);
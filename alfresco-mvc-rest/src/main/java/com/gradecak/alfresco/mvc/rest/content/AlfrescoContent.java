@@ -0,0 +1,112 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.content;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.service.cmr.repository.ContentReader;
+import org.alfresco.service.cmr.repository.ContentService;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.namespace.QName;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+/**
+ * the content of a node to be returned by a handler, written by the
+ * {@link ContentReaderHttpMessageConverter}. A plain {@link ContentReader} might
+ * be returned too when no file name is needed.
+ */
+public final class AlfrescoContent {
+
+	private final ContentReader reader;
+	private final String fileName;
+	private final Date lastModified;
+
+	private AlfrescoContent(ContentReader reader, String fileName, Date lastModified) {
+		Assert.notNull(reader, "reader must not be null!");
+		this.reader = reader;
+		this.fileName = fileName;
+		this.lastModified = lastModified;
+	}
+
+	public static AlfrescoContent of(ContentReader reader) {
+		return new AlfrescoContent(reader, null, null);
+	}
+
+	/**
+	 * the <code>cm:content</code> of the node
+	 */
+	public static AlfrescoContent of(ContentService contentService, NodeRef nodeRef) {
+		return of(contentService, nodeRef, ContentModel.PROP_CONTENT);
+	}
+
+	public static AlfrescoContent of(ContentService contentService, NodeRef nodeRef, QName property) {
+		Assert.notNull(contentService, "contentService must not be null!");
+		ContentReader reader = contentService.getReader(nodeRef, property);
+		if (reader == null) {
+			throw new IllegalArgumentException("No content found for the property " + property + " of " + nodeRef);
+		}
+		return of(reader);
+	}
+
+	/**
+	 * @return a copy sent as an attachment with the given file name
+	 */
+	public AlfrescoContent asAttachment(String fileName) {
+		Assert.hasText(fileName, "fileName must not be empty!");
+		return new AlfrescoContent(reader, fileName, lastModified);
+	}
+
+	/**
+	 * @return a copy validated against the given date, typically the
+	 *         <code>cm:modified</code> of the node, instead of the last
+	 *         modification of the content
+	 */
+	public AlfrescoContent withLastModified(Date lastModified) {
+		return new AlfrescoContent(reader, fileName, lastModified);
+	}
+
+	public ContentReader getReader() {
+		return reader;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * @return the last modification in milliseconds, 0 or less if unknown
+	 */
+	public long getLastModified() {
+		return lastModified != null ? lastModified.getTime() : reader.getLastModified();
+	}
+
+	/**
+	 * @return a strong entity tag derived from the content URL, which changes
+	 *         with each new content, or <code>null</code> if there is no content
+	 *         URL
+	 */
+	public String getETag() {
+		String contentUrl = reader.getContentUrl();
+		if (contentUrl == null) {
+			return null;
+		}
+		return "\"" + DigestUtils.md5DigestAsHex(contentUrl.getBytes(StandardCharsets.UTF_8)) + "\"";
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.content;
+
+import java.util.List;
+
+import org.alfresco.service.cmr.repository.ContentReader;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * answers the GET requests of a content with a Range header with a
+ * <code>206 Partial Content</code>, a single range is written as is and
+ * several ones as <code>multipart/byteranges</code>. An If-Range header is
+ * validated against the entity tag or the last modification of the
+ * {@link AlfrescoContent}, the whole content is written when it does not
+ * match.
+ */
+@ControllerAdvice
+public class ContentRangeAdvice implements ResponseBodyAdvice<Object> {
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return ContentReaderHttpMessageConverter.class.isAssignableFrom(converterType);
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+			ServerHttpResponse response) {
+		if (!HttpMethod.GET.equals(request.getMethod())
+				|| !(body instanceof ContentReader || body instanceof AlfrescoContent)) {
+			return body;
+		}
+
+		HttpHeaders requestHeaders = request.getHeaders();
+		if (!requestHeaders.containsKey(HttpHeaders.RANGE)) {
+			return body;
+		}
+
+		AlfrescoContent content = body instanceof AlfrescoContent ? (AlfrescoContent) body
+				: AlfrescoContent.of((ContentReader) body);
+		if (!ifRangeMatches(requestHeaders, content)) {
+			return body;
+		}
+
+		long length = content.getReader().getSize();
+		ContentRanges ranges;
+		try {
+			List<HttpRange> httpRanges = requestHeaders.getRange();
+			if (httpRanges.isEmpty() || length < 0) {
+				return body;
+			}
+			ranges = new ContentRanges(content, httpRanges, length);
+			long total = 0;
+			for (int i = 0; i < httpRanges.size(); i++) {
+				// fails for a range out of the content
+				total += ranges.getRangeEnd(i) - ranges.getRangeStart(i) + 1;
+			}
+			if (httpRanges.size() > 1 && total > length) {
+				// as Spring does for the resources, overlapping ranges could multiply the
+				// response size
+				throw new IllegalArgumentException("The sum of all ranges exceeds the content length");
+			}
+		} catch (IllegalArgumentException e) {
+			response.setStatusCode(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+			response.getHeaders().set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+			return null;
+		}
+
+		response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+		if (ranges.isMultipart()) {
+			response.getHeaders().setContentType(ranges.getMultipartContentType());
+		}
+		return ranges;
+	}
+
+	private static boolean ifRangeMatches(HttpHeaders requestHeaders, AlfrescoContent content) {
+		String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+		if (ifRange == null) {
+			return true;
+		}
+
+		ifRange = ifRange.trim();
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			// If-Range requires a strong comparison
+			return ifRange.equals(content.getETag());
+		}
+
+		long lastModified = content.getLastModified();
+		if (lastModified <= 0) {
+			return false;
+		}
+		try {
+			return requestHeaders.getFirstDate(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.content;
+
+import java.util.List;
+
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * the satisfiable ranges of a content requested with a Range header, see
+ * {@link ContentRangeAdvice}
+ */
+final class ContentRanges {
+
+	private final AlfrescoContent content;
+	private final List<HttpRange> ranges;
+	private final long length;
+	private final String boundary;
+
+	ContentRanges(AlfrescoContent content, List<HttpRange> ranges, long length) {
+		this.content = content;
+		this.ranges = ranges;
+		this.length = length;
+		this.boundary = ranges.size() > 1 ? new String(MimeTypeUtils.generateMultipartBoundary()) : null;
+	}
+
+	AlfrescoContent getContent() {
+		return content;
+	}
+
+	List<HttpRange> getRanges() {
+		return ranges;
+	}
+
+	long getLength() {
+		return length;
+	}
+
+	boolean isMultipart() {
+		return boundary != null;
+	}
+
+	String getBoundary() {
+		return boundary;
+	}
+
+	MediaType getMultipartContentType() {
+		return MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary);
+	}
+
+	long getRangeStart(int index) {
+		return ranges.get(index).getRangeStart(length);
+	}
+
+	long getRangeEnd(int index) {
+		return ranges.get(index).getRangeEnd(length);
+	}
+
+	String getContentRange(int index) {
+		return "bytes " + getRangeStart(index) + "-" + getRangeEnd(index) + "/" + length;
+	}
+}
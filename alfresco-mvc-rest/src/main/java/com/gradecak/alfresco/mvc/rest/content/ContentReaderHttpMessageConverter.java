@@ -0,0 +1,267 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.content;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.alfresco.service.cmr.repository.ContentReader;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * writes a {@link ContentReader} or an {@link AlfrescoContent} to the response
+ * without copying the content through a new heap array. A file-backed content
+ * is transferred by its {@link FileChannel}, any other is copied through a
+ * small pool of large buffers.
+ * <p>
+ * The Content-Type, the charset and the Content-Length are taken from the
+ * content data of the reader. The ranges selected by the
+ * {@link ContentRangeAdvice} are read directly from their position when the
+ * content is file-backed.
+ */
+public class ContentReaderHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int BUFFER_POOL_SIZE = 16;
+	private static final String CRLF = "\r\n";
+
+	private final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(BUFFER_POOL_SIZE);
+
+	public ContentReaderHttpMessageConverter() {
+		super(MediaType.ALL);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return ContentReader.class.isAssignableFrom(clazz) || AlfrescoContent.class.isAssignableFrom(clazz)
+				|| ContentRanges.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected Object readInternal(Class<? extends Object> clazz, HttpInputMessage inputMessage) throws IOException {
+		throw new HttpMessageNotReadableException("Content readers are only written", inputMessage);
+	}
+
+	@Override
+	protected MediaType getDefaultContentType(Object content) throws IOException {
+		if (content instanceof ContentRanges && ((ContentRanges) content).isMultipart()) {
+			return ((ContentRanges) content).getMultipartContentType();
+		}
+		return getContentType(reader(content));
+	}
+
+	private static MediaType getContentType(ContentReader reader) {
+		if (!StringUtils.hasText(reader.getMimetype())) {
+			return MediaType.APPLICATION_OCTET_STREAM;
+		}
+
+		MediaType mediaType = MediaType.parseMediaType(reader.getMimetype());
+		if (StringUtils.hasText(reader.getEncoding()) && isTextual(mediaType)) {
+			mediaType = new MediaType(mediaType, Charset.forName(reader.getEncoding()));
+		}
+		return mediaType;
+	}
+
+	@Override
+	protected Long getContentLength(Object content, MediaType contentType) throws IOException {
+		if (content instanceof ContentRanges) {
+			ContentRanges ranges = (ContentRanges) content;
+			// the length of the multipart response is not computed upfront
+			return ranges.isMultipart() ? null : ranges.getRangeEnd(0) - ranges.getRangeStart(0) + 1;
+		}
+		long size = reader(content).getSize();
+		return size >= 0 ? size : null;
+	}
+
+	@Override
+	protected void writeInternal(Object content, HttpOutputMessage outputMessage) throws IOException {
+		disableContentCaching();
+		AlfrescoContent alfrescoContent = alfrescoContent(content);
+		HttpHeaders headers = outputMessage.getHeaders();
+		headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+		addValidatorHeaders(headers, alfrescoContent);
+
+		if (content instanceof ContentRanges) {
+			writeRanges((ContentRanges) content, outputMessage);
+			return;
+		}
+
+		try (ReadableByteChannel channel = alfrescoContent.getReader().getReadableChannel()) {
+			OutputStream body = outputMessage.getBody();
+			write(channel, 0, -1, body);
+			body.flush();
+		}
+	}
+
+	private static void addValidatorHeaders(HttpHeaders headers, AlfrescoContent content) {
+		if (content.getFileName() != null) {
+			headers.setContentDisposition(
+					ContentDisposition.attachment().filename(content.getFileName(), StandardCharsets.UTF_8).build());
+		}
+		if (headers.getETag() == null && content.getETag() != null) {
+			headers.setETag(content.getETag());
+		}
+		if (headers.getLastModified() < 0 && content.getLastModified() > 0) {
+			headers.setLastModified(content.getLastModified());
+		}
+	}
+
+	private void writeRanges(ContentRanges ranges, HttpOutputMessage outputMessage) throws IOException {
+		ContentReader reader = ranges.getContent().getReader();
+
+		if (!ranges.isMultipart()) {
+			outputMessage.getHeaders().set(HttpHeaders.CONTENT_RANGE, ranges.getContentRange(0));
+			OutputStream body = outputMessage.getBody();
+			writeRange(reader, ranges, 0, body);
+			body.flush();
+			return;
+		}
+
+		OutputStream body = outputMessage.getBody();
+		String contentType = getContentType(reader).toString();
+		for (int i = 0; i < ranges.getRanges().size(); i++) {
+			print(body, CRLF + "--" + ranges.getBoundary() + CRLF);
+			print(body, HttpHeaders.CONTENT_TYPE + ": " + contentType + CRLF);
+			print(body, HttpHeaders.CONTENT_RANGE + ": " + ranges.getContentRange(i) + CRLF + CRLF);
+			// a reader is read once, the next ranges use new readers of the content
+			writeRange(i == 0 ? reader : reader.getReader(), ranges, i, body);
+		}
+		print(body, CRLF + "--" + ranges.getBoundary() + "--");
+		body.flush();
+	}
+
+	private void writeRange(ContentReader reader, ContentRanges ranges, int index, OutputStream body)
+			throws IOException {
+		long start = ranges.getRangeStart(index);
+		try (ReadableByteChannel channel = reader.getReadableChannel()) {
+			write(channel, start, ranges.getRangeEnd(index) - start + 1, body);
+		}
+	}
+
+	/**
+	 * writes <code>count</code> bytes from <code>position</code>, all the
+	 * remaining ones if <code>count</code> is negative
+	 */
+	private void write(ReadableByteChannel channel, long position, long count, OutputStream body)
+			throws IOException {
+		if (channel instanceof FileChannel) {
+			FileChannel fileChannel = (FileChannel) channel;
+			long end = count < 0 ? fileChannel.size() : position + count;
+			transfer(fileChannel, position, end, body);
+		} else {
+			InputStream in = Channels.newInputStream(channel);
+			skip(in, position);
+			copy(in, count, body);
+		}
+	}
+
+	private static void transfer(FileChannel channel, long position, long end, OutputStream body)
+			throws IOException {
+		// the output channel is not closed, it would close the response
+		WritableByteChannel target = Channels.newChannel(body);
+		while (position < end) {
+			position += channel.transferTo(position, end - position, target);
+		}
+	}
+
+	private static void skip(InputStream in, long count) throws IOException {
+		while (count > 0) {
+			long skipped = in.skip(count);
+			if (skipped <= 0) {
+				if (in.read() == -1) {
+					throw new IOException("Unexpected end of the content");
+				}
+				skipped = 1;
+			}
+			count -= skipped;
+		}
+	}
+
+	private void copy(InputStream in, long count, OutputStream out) throws IOException {
+		byte[] buffer = buffers.poll();
+		if (buffer == null) {
+			buffer = new byte[BUFFER_SIZE];
+		}
+		try {
+			long remaining = count < 0 ? Long.MAX_VALUE : count;
+			int read;
+			while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+				out.write(buffer, 0, read);
+				remaining -= read;
+			}
+		} finally {
+			buffers.offer(buffer);
+		}
+	}
+
+	private static void print(OutputStream out, String value) throws IOException {
+		out.write(value.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static boolean isTextual(MediaType mediaType) {
+		String subtype = mediaType.getSubtype();
+		return "text".equals(mediaType.getType()) || subtype.equals("json") || subtype.endsWith("+json")
+				|| subtype.equals("xml") || subtype.endsWith("+xml") || subtype.equals("javascript");
+	}
+
+	private static AlfrescoContent alfrescoContent(Object content) {
+		if (content instanceof ContentRanges) {
+			return ((ContentRanges) content).getContent();
+		}
+		return content instanceof AlfrescoContent ? (AlfrescoContent) content
+				: AlfrescoContent.of((ContentReader) content);
+	}
+
+	private static ContentReader reader(Object content) {
+		return content instanceof ContentReader ? (ContentReader) content : alfrescoContent(content).getReader();
+	}
+
+	/**
+	 * the content is streamed, it must not be buffered to compute a shallow ETag
+	 */
+	private static void disableContentCaching() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes instanceof ServletRequestAttributes) {
+			ShallowEtagHeaderFilter.disableContentCaching(((ServletRequestAttributes) attributes).getRequest());
+		}
+	}
+}
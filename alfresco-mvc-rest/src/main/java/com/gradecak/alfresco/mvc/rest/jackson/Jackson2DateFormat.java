@@ -0,0 +1,320 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.rest.jackson;
+
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TimeZone;
+
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+
+/**
+ * a {@link DateFormat} backed by an immutable {@link DateTimeFormatter}.
+ * Jackson clones the configured date format for each read and write, a clone
+ * shares the formatters of the original.
+ * <p>
+ * The dates are written with the pattern in the time zone of the format, the
+ * default <code>yyyy-MM-dd'T'HH:mm:ss.SSSZ</code> in UTC gives
+ * <code>2021-08-01T10:15:30.000+0000</code>. Besides the pattern the ISO-8601
+ * forms are read too: <code>2021-08-01T10:15:30Z</code>,
+ * <code>2021-08-01T10:15:30.5+02:00</code> or <code>2021-08-01</code>, the
+ * time zone of the format applies when the offset is missing.
+ * <p>
+ * It extends {@link StdDateFormat} so that
+ * <code>@JsonFormat(timezone = ..., lenient = ..., shape = STRING)</code> and
+ * {@link com.fasterxml.jackson.databind.ObjectMapper#setTimeZone(TimeZone)}
+ * apply to it: they change the time zone or the leniency of a clone, the
+ * pattern is kept. The locale of the pattern is always {@link Locale#ROOT}.
+ */
+public class Jackson2DateFormat extends StdDateFormat {
+
+	private static final long serialVersionUID = -6468254826317430531L;
+
+	public static final String DEFAULT_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+	public static final ZoneId DEFAULT_ZONE = ZoneOffset.UTC;
+
+	private static final DateTimeFormatter ISO_PARSER = new DateTimeFormatterBuilder().parseCaseInsensitive()
+			.append(DateTimeFormatter.ISO_LOCAL_DATE).optionalStart().appendLiteral('T')
+			.append(DateTimeFormatter.ISO_LOCAL_TIME).optionalStart().appendOffset("+HH:MM", "Z").optionalEnd()
+			.optionalStart().appendOffset("+HHMM", "Z").optionalEnd().optionalStart().appendOffset("+HH", "Z")
+			.optionalEnd().optionalEnd().toFormatter(Locale.ROOT);
+
+	private final String pattern;
+	// the pattern in any zone, shared by the clones
+	private final transient DateTimeFormatter patternFormatter;
+	private ZoneId zone;
+	private Boolean lenient;
+	private transient DateTimeFormatter formatter;
+	private transient DateTimeFormatter isoParser;
+
+	public Jackson2DateFormat() {
+		this(DEFAULT_PATTERN, DEFAULT_ZONE);
+	}
+
+	/**
+	 * @param pattern the {@link DateTimeFormatter} pattern of the written dates
+	 * @param zone    the time zone of the written dates and of the read dates
+	 *                without an offset
+	 */
+	public Jackson2DateFormat(String pattern, ZoneId zone) {
+		this(pattern, createFormatter(pattern), zone, null);
+	}
+
+	private Jackson2DateFormat(String pattern, DateTimeFormatter patternFormatter, ZoneId zone, Boolean lenient) {
+		super(toTimeZone(zone), Locale.ROOT, lenient, false);
+		this.pattern = pattern;
+		this.patternFormatter = patternFormatter;
+		this.zone = zone;
+		this.lenient = lenient;
+		configure();
+	}
+
+	private Jackson2DateFormat(Jackson2DateFormat other) {
+		super(other._timezone, Locale.ROOT, other.lenient, false);
+		this.pattern = other.pattern;
+		this.patternFormatter = other.patternFormatter;
+		this.zone = other.zone;
+		this.lenient = other.lenient;
+		this.formatter = other.formatter;
+		this.isoParser = other.isoParser;
+	}
+
+	private static TimeZone toTimeZone(ZoneId zone) {
+		Assert.notNull(zone, "zone must not be null!");
+		return TimeZone.getTimeZone(zone);
+	}
+
+	private static DateTimeFormatter createFormatter(String pattern) {
+		Assert.hasText(pattern, "pattern must not be empty!");
+		// the era of yyyy, required by the strict resolution
+		return new DateTimeFormatterBuilder().appendPattern(pattern).parseDefaulting(ChronoField.ERA, 1)
+				.toFormatter(Locale.ROOT);
+	}
+
+	private void configure() {
+		ResolverStyle resolverStyle = lenient == null ? ResolverStyle.SMART
+				: lenient ? ResolverStyle.LENIENT : ResolverStyle.STRICT;
+		this.formatter = patternFormatter.withZone(zone).withResolverStyle(resolverStyle);
+		this.isoParser = ISO_PARSER.withZone(zone).withResolverStyle(resolverStyle);
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	public Jackson2DateFormat withZone(ZoneId zone) {
+		return this.zone.equals(zone) ? this : new Jackson2DateFormat(pattern, patternFormatter, zone, lenient);
+	}
+
+	/**
+	 * @param temporal an {@link Instant} or any date-time with an offset
+	 */
+	public String format(TemporalAccessor temporal) {
+		return formatter.format(temporal);
+	}
+
+	@Override
+	public StringBuffer format(Date date, StringBuffer toAppendTo, FieldPosition fieldPosition) {
+		// not Date#toInstant() which java.sql.Date does not support
+		formatter.formatTo(Instant.ofEpochMilli(date.getTime()), toAppendTo);
+		return toAppendTo;
+	}
+
+	/**
+	 * @throws DateTimeException if the text is neither in the pattern nor in an
+	 *                           ISO-8601 form
+	 */
+	public Instant parseInstant(CharSequence text) {
+		ParsePosition position = new ParsePosition(0);
+		Instant instant = parseInstant(text, position);
+		if (instant == null || position.getIndex() != text.length()) {
+			throw new DateTimeException("Unparseable date: \"" + text + "\"");
+		}
+		return instant;
+	}
+
+	@Override
+	public Date parse(String source) throws ParseException {
+		ParsePosition position = new ParsePosition(0);
+		Date date = parse(source.trim(), position);
+		if (date == null) {
+			throw new ParseException("Unparseable date: \"" + source + "\"", position.getErrorIndex());
+		}
+		return date;
+	}
+
+	@Override
+	public Date parse(String source, ParsePosition pos) {
+		Instant instant = parseInstant(source, pos);
+		return instant != null ? new Date(instant.toEpochMilli()) : null;
+	}
+
+	private Instant parseInstant(CharSequence text, ParsePosition pos) {
+		Instant instant = parseInstant(formatter, text, pos);
+		return instant != null ? instant : parseInstant(isoParser, text, pos);
+	}
+
+	private Instant parseInstant(DateTimeFormatter parser, CharSequence text, ParsePosition pos) {
+		ParsePosition position = new ParsePosition(pos.getIndex());
+		try {
+			Instant instant = toInstant(parser.parse(text, position));
+			pos.setIndex(position.getIndex());
+			pos.setErrorIndex(-1);
+			return instant;
+		} catch (DateTimeException e) {
+			pos.setErrorIndex(Math.max(position.getErrorIndex(), pos.getIndex()));
+			return null;
+		}
+	}
+
+	private Instant toInstant(TemporalAccessor parsed) {
+		if (parsed.isSupported(ChronoField.INSTANT_SECONDS)) {
+			return Instant.from(parsed);
+		}
+
+		LocalDate date = parsed.query(TemporalQueries.localDate());
+		if (date == null) {
+			throw new DateTimeException("no date in " + parsed);
+		}
+		LocalTime time = parsed.query(TemporalQueries.localTime());
+		return ZonedDateTime.of(date, time != null ? time : LocalTime.MIDNIGHT, zone).toInstant();
+	}
+
+	/**
+	 * @return a copy sharing the formatter of this format
+	 */
+	@Override
+	public Jackson2DateFormat clone() {
+		return new Jackson2DateFormat(this);
+	}
+
+	@Override
+	public TimeZone getTimeZone() {
+		return _timezone;
+	}
+
+	@Override
+	public void setTimeZone(TimeZone timeZone) {
+		ZoneId newZone = timeZone != null ? timeZone.toZoneId() : DEFAULT_ZONE;
+		if (!zone.equals(newZone)) {
+			_timezone = toTimeZone(newZone);
+			zone = newZone;
+			configure();
+		}
+	}
+
+	@Override
+	public Jackson2DateFormat withTimeZone(TimeZone timeZone) {
+		return withZone(timeZone != null ? timeZone.toZoneId() : DEFAULT_ZONE);
+	}
+
+	/**
+	 * @return this format, the pattern does not depend on the locale
+	 */
+	@Override
+	public Jackson2DateFormat withLocale(Locale locale) {
+		return this;
+	}
+
+	@Override
+	public Jackson2DateFormat withLenient(Boolean lenient) {
+		return Objects.equals(this.lenient, lenient) ? this
+				: new Jackson2DateFormat(pattern, patternFormatter, zone, lenient);
+	}
+
+	/**
+	 * @return this format, the offset is written as the pattern says
+	 */
+	@Override
+	public Jackson2DateFormat withColonInTimeZone(boolean colonInTimeZone) {
+		return this;
+	}
+
+	/**
+	 * <code>true</code> to resolve the invalid dates leniently, 2021-02-30 being
+	 * 2021-03-02, <code>false</code> to reject them. By default the day of the
+	 * month is clamped to the last day, 2021-02-30 being 2021-02-28.
+	 */
+	@Override
+	public void setLenient(boolean lenient) {
+		if (!Boolean.valueOf(lenient).equals(this.lenient)) {
+			this.lenient = lenient;
+			configure();
+		}
+	}
+
+	@Override
+	public boolean isLenient() {
+		return lenient == null || lenient;
+	}
+
+	@Override
+	public String toPattern() {
+		return pattern;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Jackson2DateFormat)) {
+			return false;
+		}
+		Jackson2DateFormat other = (Jackson2DateFormat) obj;
+		return pattern.equals(other.pattern) && zone.equals(other.zone) && Objects.equals(lenient, other.lenient);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(pattern, zone, lenient);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + pattern + ", " + zone + "]";
+	}
+
+	private Object readResolve() {
+		return new Jackson2DateFormat(pattern, createFormatter(pattern), zone, lenient);
+	}
+}
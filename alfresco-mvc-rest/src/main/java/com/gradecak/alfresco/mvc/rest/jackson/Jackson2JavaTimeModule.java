@@ -0,0 +1,119 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.rest.jackson;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.function.Function;
+
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * writes and reads the {@link Instant}, {@link OffsetDateTime} and
+ * {@link ZonedDateTime} values with a {@link Jackson2DateFormat}, the same way
+ * as the {@link java.util.Date} values. The read values are in the time zone
+ * of the format, numbers are read as epoch milliseconds.
+ * <p>
+ * The local dates and times, without an instant, are left to the Jackson
+ * <code>JavaTimeModule</code>.
+ * <p>
+ * It changes the wire format of the <code>JavaTimeModule</code>, which writes
+ * ISO-8601 with the zone and reads numbers as epoch seconds, the default
+ * configuration installs it only with
+ * <code>mvc.rest.jackson.javaTimeDateFormat</code>.
+ */
+public class Jackson2JavaTimeModule extends SimpleModule {
+
+	private static final long serialVersionUID = 3940152361628409171L;
+
+	public Jackson2JavaTimeModule(Jackson2DateFormat dateFormat) {
+		super("alfresco-mvc-java-time");
+		Assert.notNull(dateFormat, "dateFormat must not be null!");
+
+		add(Instant.class, dateFormat, instant -> instant);
+		add(OffsetDateTime.class, dateFormat, instant -> OffsetDateTime.ofInstant(instant, dateFormat.getZone()));
+		add(ZonedDateTime.class, dateFormat, instant -> ZonedDateTime.ofInstant(instant, dateFormat.getZone()));
+	}
+
+	private <T extends TemporalAccessor> void add(Class<T> type, Jackson2DateFormat dateFormat,
+			Function<Instant, T> fromInstant) {
+		addSerializer(type, new TemporalSerializer<>(type, dateFormat));
+		addDeserializer(type, new TemporalDeserializer<>(type, dateFormat, fromInstant));
+	}
+
+	static class TemporalSerializer<T extends TemporalAccessor> extends StdSerializer<T> {
+
+		private final Jackson2DateFormat dateFormat;
+
+		TemporalSerializer(Class<T> type, Jackson2DateFormat dateFormat) {
+			super(type);
+			this.dateFormat = dateFormat;
+		}
+
+		@Override
+		public void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeString(dateFormat.format(value));
+		}
+	}
+
+	static class TemporalDeserializer<T extends TemporalAccessor> extends StdScalarDeserializer<T> {
+
+		private final Jackson2DateFormat dateFormat;
+		private final Function<Instant, T> fromInstant;
+
+		TemporalDeserializer(Class<T> type, Jackson2DateFormat dateFormat, Function<Instant, T> fromInstant) {
+			super(type);
+			this.dateFormat = dateFormat;
+			this.fromInstant = fromInstant;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+			if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+				return fromInstant.apply(Instant.ofEpochMilli(p.getLongValue()));
+			}
+			if (!p.hasToken(JsonToken.VALUE_STRING)) {
+				return (T) ctxt.handleUnexpectedToken(handledType(), p);
+			}
+
+			String text = p.getText().trim();
+			if (text.isEmpty()) {
+				return null;
+			}
+			try {
+				return fromInstant.apply(dateFormat.parseInstant(text));
+			} catch (DateTimeException e) {
+				return (T) ctxt.handleWeirdStringValue(handledType(), text, e.getMessage());
+			}
+		}
+	}
+}
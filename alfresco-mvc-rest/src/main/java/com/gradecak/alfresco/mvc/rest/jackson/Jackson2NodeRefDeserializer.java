@@ -14,21 +14,54 @@
  * limitations under the License.
  */
 
+
 package com.gradecak.alfresco.mvc.rest.jackson;
 
 import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.repository.StoreRef;
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 
+/**
+ * reads a {@link NodeRef} from its full form or from a bare id of the
+ * workspace://SpacesStore store. The common forms, a bare id and a node of
+ * workspace://SpacesStore, are parsed by hand straight from the parser buffer,
+ * the others go through {@link NodeRef#isNodeRef(String)}.
+ * <p>
+ * With a cache size, the identical node references of a single JSON document
+ * share the same instance.
+ */
 public class Jackson2NodeRefDeserializer extends JsonDeserializer<NodeRef> implements Converter<String, NodeRef> {
 
+	private static final String CACHE_ATTRIBUTE = Jackson2NodeRefDeserializer.class.getName() + ".CACHE";
+	private static final String WORKSPACE_SPACESSTORE_PREFIX = StoreRef.STORE_REF_WORKSPACE_SPACESSTORE + "/";
+
+	private final int cacheSize;
+
+	public Jackson2NodeRefDeserializer() {
+		this(0);
+	}
+
+	/**
+	 * @param cacheSize the maximum number of distinct node references shared
+	 *                  within a JSON document, 0 to disable the cache
+	 */
+	public Jackson2NodeRefDeserializer(final int cacheSize) {
+		Assert.isTrue(cacheSize >= 0, "cacheSize must not be negative!");
+		this.cacheSize = cacheSize;
+	}
+
 	@Override
 	public Class<?> handledType() {
 		return NodeRef.class;
@@ -36,12 +69,31 @@ public class Jackson2NodeRefDeserializer extends JsonDeserializer<NodeRef> imple
 
 	@Override
 	public NodeRef deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+		if (!jp.hasToken(JsonToken.VALUE_STRING)) {
+			return parse(jp.getText());
+		}
 
-		String id = jp.getText();
-		if (NodeRef.isNodeRef(id)) {
-			return new NodeRef(id);
+		// the characters are only valid until the next token
+		CharBuffer text = CharBuffer.wrap(jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength());
+		if (cacheSize == 0) {
+			return parse(text);
 		}
-		return new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, id);
+
+		@SuppressWarnings("unchecked")
+		Map<CharBuffer, NodeRef> cache = (Map<CharBuffer, NodeRef>) ctxt.getAttribute(CACHE_ATTRIBUTE);
+		if (cache == null) {
+			cache = new HashMap<>();
+			ctxt.setAttribute(CACHE_ATTRIBUTE, cache);
+		}
+
+		NodeRef nodeRef = cache.get(text);
+		if (nodeRef == null) {
+			nodeRef = parse(text);
+			if (cache.size() < cacheSize) {
+				cache.put(CharBuffer.wrap(text.toString()), nodeRef);
+			}
+		}
+		return nodeRef;
 	}
 
 	@Override
@@ -49,10 +101,58 @@ public class Jackson2NodeRefDeserializer extends JsonDeserializer<NodeRef> imple
 		if (!StringUtils.hasText(id)) {
 			return null;
 		}
+		return parse(id);
+	}
+
+	static NodeRef parse(final CharSequence value) {
+		int length = value.length();
+		int prefixLength = WORKSPACE_SPACESSTORE_PREFIX.length();
+		if (length > prefixLength && startsWithWorkspaceSpacesStore(value) && isId(value, prefixLength)) {
+			return new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE,
+					value.subSequence(prefixLength, length).toString());
+		}
+
+		if (indexOf(value, '/') < 0) {
+			// without the :// separator it cannot be a full node reference
+			return new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, value.toString());
+		}
+
+		String id = value.toString();
 		if (NodeRef.isNodeRef(id)) {
 			return new NodeRef(id);
 		}
 		return new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, id);
 	}
 
+	private static boolean startsWithWorkspaceSpacesStore(final CharSequence value) {
+		for (int i = 0; i < WORKSPACE_SPACESSTORE_PREFIX.length(); i++) {
+			if (value.charAt(i) != WORKSPACE_SPACESSTORE_PREFIX.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * the id is what follows the last slash, a line terminator would not match
+	 * {@link NodeRef#isNodeRef(String)}
+	 */
+	private static boolean isId(final CharSequence value, final int start) {
+		for (int i = start; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '/' || c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int indexOf(final CharSequence value, final char c) {
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
 }
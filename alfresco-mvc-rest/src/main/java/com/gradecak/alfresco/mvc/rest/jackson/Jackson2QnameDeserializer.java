@@ -14,10 +14,12 @@
  * limitations under the License.
  */
 
+
 package com.gradecak.alfresco.mvc.rest.jackson;
 
 import java.io.IOException;
 
+import org.alfresco.repo.dictionary.DictionaryListener;
 import org.alfresco.service.namespace.NamespaceService;
 import org.alfresco.service.namespace.QName;
 import org.springframework.core.convert.converter.Converter;
@@ -25,15 +27,36 @@ import org.springframework.core.convert.converter.Converter;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.KeyDeserializer;
 
+/**
+ * reads a {@link QName} from its prefixed <code>prefix:local</code> form or
+ * from its full <code>{uri}local</code> form, the latter does not need the
+ * namespace registry. The resolved names are cached, see
+ * {@link #getKeyDeserializer()} for the keys of the property maps, and
+ * cleared by {@link #getDictionaryListener()}.
+ */
 public class Jackson2QnameDeserializer extends JsonDeserializer<QName> implements Converter<String, QName> {
 
-	private NamespaceService namespaceService;
+	public static final int DEFAULT_CACHE_SIZE = QnameCache.DEFAULT_SIZE;
+
+	private final NamespaceService namespaceService;
+	private final QnameCache<String, QName> cache;
+	private final KeyDeserializer keyDeserializer = new QnameKeyDeserializer();
 
 	public Jackson2QnameDeserializer(NamespaceService namespaceService) {
+		this(namespaceService, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param cacheSize the maximum number of cached names per tenant, 0 to
+	 *                  disable the cache
+	 */
+	public Jackson2QnameDeserializer(NamespaceService namespaceService, int cacheSize) {
 		this.namespaceService = namespaceService;
+		this.cache = new QnameCache<>(cacheSize);
 	}
-	
+
 	@Override
 	public Class<?> handledType() {
 		return QName.class;
@@ -41,13 +64,49 @@ public class Jackson2QnameDeserializer extends JsonDeserializer<QName> implement
 
 	@Override
 	public QName deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
-		String qname = jp.getText();
-		return QName.createQName(qname, namespaceService);
+		return resolve(jp.getText());
 	}
 
 	@Override
 	public QName convert(String qname) {
-		return QName.createQName(qname, namespaceService);
+		return resolve(qname);
+	}
+
+	/**
+	 * @return the deserializer of the {@link QName} map keys, sharing the cache
+	 *         of this deserializer
+	 */
+	public KeyDeserializer getKeyDeserializer() {
+		return keyDeserializer;
 	}
 
+	/**
+	 * @return the listener clearing the cache each time the dictionary is
+	 *         reloaded
+	 */
+	public DictionaryListener getDictionaryListener() {
+		return cache;
+	}
+
+	public void clearCache() {
+		cache.clear();
+	}
+
+	private QName resolve(String qname) {
+		if (qname == null || qname.isEmpty()) {
+			// rejected the usual way
+			return QName.createQName(qname, namespaceService);
+		}
+
+		return cache.get(qname, name -> name.charAt(0) == QName.NAMESPACE_BEGIN ? QName.createQName(name)
+				: QName.createQName(name, namespaceService));
+	}
+
+	private final class QnameKeyDeserializer extends KeyDeserializer {
+
+		@Override
+		public Object deserializeKey(String key, DeserializationContext ctxt) throws IOException {
+			return resolve(key);
+		}
+	}
 }
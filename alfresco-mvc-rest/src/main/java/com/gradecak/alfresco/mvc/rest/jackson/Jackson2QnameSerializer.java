@@ -14,32 +14,62 @@
  * limitations under the License.
  */
 
+
 package com.gradecak.alfresco.mvc.rest.jackson;
 
 import java.io.IOException;
 
-import org.alfresco.service.namespace.NamespacePrefixResolver;
+import org.alfresco.repo.dictionary.DictionaryListener;
+import org.alfresco.service.namespace.NamespaceException;
 import org.alfresco.service.namespace.NamespaceService;
 import org.alfresco.service.namespace.QName;
+import org.springframework.util.Assert;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 
+/**
+ * writes a {@link QName} in its full <code>{uri}local</code> form or, if
+ * prefixed, in its <code>prefix:local</code> form when the namespace has a
+ * prefix. The encoded names are cached, see {@link #getKeySerializer()} for the
+ * keys of the property maps, and cleared by {@link #getDictionaryListener()}.
+ */
 public class Jackson2QnameSerializer extends StdSerializer<QName> {
 
-	private NamespaceService namespaceService;
+	public static final int DEFAULT_CACHE_SIZE = QnameCache.DEFAULT_SIZE;
+
+	private final NamespaceService namespaceService;
+	private final boolean prefixed;
+	private final QnameCache<QName, SerializableString> cache;
+	private final KeySerializer keySerializer = new KeySerializer();
 
 	public Jackson2QnameSerializer(NamespaceService namespaceService) {
+		this(namespaceService, false);
+	}
+
+	public Jackson2QnameSerializer(NamespaceService namespaceService, boolean prefixed) {
+		this(namespaceService, prefixed, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param cacheSize the maximum number of cached names per tenant, 0 to
+	 *                  disable the cache
+	 */
+	public Jackson2QnameSerializer(NamespaceService namespaceService, boolean prefixed, int cacheSize) {
 		super(QName.class);
+		Assert.isTrue(!prefixed || namespaceService != null, "namespaceService must not be null if prefixed!");
 		this.namespaceService = namespaceService;
+		this.prefixed = prefixed;
+		this.cache = new QnameCache<>(cacheSize);
 	}
 
 	@Override
 	public void serialize(QName value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
-		// String prefixString = value.toPrefixString(namespaceService);
-		String string = value.toString();
-		jgen.writeString(value.toString());
+		jgen.writeString(encode(value));
 	}
 
 	@Override
@@ -47,4 +77,50 @@ public class Jackson2QnameSerializer extends StdSerializer<QName> {
 		return QName.class;
 	}
 
+	/**
+	 * @return the serializer of the {@link QName} map keys, sharing the cache of
+	 *         this serializer
+	 */
+	public JsonSerializer<QName> getKeySerializer() {
+		return keySerializer;
+	}
+
+	/**
+	 * @return the listener clearing the cache each time the dictionary is
+	 *         reloaded
+	 */
+	public DictionaryListener getDictionaryListener() {
+		return cache;
+	}
+
+	public void clearCache() {
+		cache.clear();
+	}
+
+	private SerializableString encode(QName value) {
+		return cache.get(value, name -> new SerializedString(toString(name)));
+	}
+
+	private String toString(QName value) {
+		if (prefixed) {
+			try {
+				return value.toPrefixString(namespaceService);
+			} catch (NamespaceException e) {
+				// the namespace has no prefix
+			}
+		}
+		return value.toString();
+	}
+
+	private final class KeySerializer extends StdSerializer<QName> {
+
+		private KeySerializer() {
+			super(QName.class);
+		}
+
+		@Override
+		public void serialize(QName value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+			jgen.writeFieldName(encode(value));
+		}
+	}
 }
@@ -0,0 +1,232 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.jackson;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * writes {@link Stream} and {@link Iterator} return values element by element
+ * instead of building the whole response in memory, as a JSON array or as
+ * newline delimited JSON (<code>application/x-ndjson</code>). The output is
+ * flushed every <code>flushInterval</code> elements and the stream is closed
+ * once written.
+ * <p>
+ * A value wrapped in {@link ListEntries}, see
+ * {@link com.gradecak.alfresco.mvc.rest.AlfrescoApiResponseInterceptor}, is
+ * written in the Alfresco <code>list.entries</code> envelope.
+ */
+public class Jackson2StreamingHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+	public static final MediaType APPLICATION_NDJSON = new MediaType("application", "x-ndjson");
+
+	private static final int DEFAULT_FLUSH_INTERVAL = 100;
+
+	private final ObjectWriter objectWriter;
+	private final ObjectMapper objectMapper;
+	private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+	public Jackson2StreamingHttpMessageConverter(ObjectMapper objectMapper) {
+		super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), APPLICATION_NDJSON);
+		Assert.notNull(objectMapper, "objectMapper must not be null!");
+		this.objectMapper = objectMapper;
+		// the elements are flushed in batches
+		this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	}
+
+	/**
+	 * the number of elements written between two flushes, 0 or less to flush only
+	 * at the end
+	 */
+	public void setFlushInterval(int flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Stream.class.isAssignableFrom(clazz) || Iterator.class.isAssignableFrom(clazz)
+				|| ListEntries.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+		throw new HttpMessageNotReadableException("Streams are only written", inputMessage);
+	}
+
+	@Override
+	protected Object readInternal(Class<? extends Object> clazz, HttpInputMessage inputMessage) throws IOException {
+		throw new HttpMessageNotReadableException("Streams are only written", inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+		disableContentCaching();
+		boolean envelope = value instanceof ListEntries;
+		Object elements = envelope ? ((ListEntries) value).getElements() : value;
+
+		MediaType contentType = outputMessage.getHeaders().getContentType();
+		boolean ndjson = contentType != null && APPLICATION_NDJSON.isCompatibleWith(contentType);
+
+		try (JsonGenerator generator = objectMapper.getFactory()
+				.createGenerator(StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+			if (ndjson) {
+				// the envelope does not apply to newline delimited JSON
+				generator.setRootValueSeparator(null);
+				writeLines(generator, iterator(elements));
+			} else if (envelope) {
+				writeListEntries(generator, iterator(elements));
+			} else {
+				writeArray(generator, iterator(elements));
+			}
+		} finally {
+			close(elements);
+		}
+	}
+
+	private void writeLines(JsonGenerator generator, Iterator<?> iterator) throws IOException {
+		int count = 0;
+		while (iterator.hasNext()) {
+			objectWriter.writeValue(generator, iterator.next());
+			generator.writeRaw('\n');
+			flushIfNeeded(generator, ++count);
+		}
+	}
+
+	private void writeArray(JsonGenerator generator, Iterator<?> iterator) throws IOException {
+		generator.writeStartArray();
+		int count = 0;
+		while (iterator.hasNext()) {
+			objectWriter.writeValue(generator, iterator.next());
+			flushIfNeeded(generator, ++count);
+		}
+		generator.writeEndArray();
+	}
+
+	private void writeListEntries(JsonGenerator generator, Iterator<?> iterator) throws IOException {
+		generator.writeStartObject();
+		generator.writeObjectFieldStart("list");
+		generator.writeArrayFieldStart("entries");
+		int count = 0;
+		while (iterator.hasNext()) {
+			generator.writeStartObject();
+			generator.writeFieldName("entry");
+			objectWriter.writeValue(generator, iterator.next());
+			generator.writeEndObject();
+			flushIfNeeded(generator, ++count);
+		}
+		generator.writeEndArray();
+
+		// the size is only known at the end
+		generator.writeObjectFieldStart("pagination");
+		generator.writeNumberField("count", count);
+		generator.writeBooleanField("hasMoreItems", false);
+		generator.writeNumberField("totalItems", count);
+		generator.writeNumberField("skipCount", 0);
+		generator.writeNumberField("maxItems", count);
+		generator.writeEndObject();
+
+		generator.writeEndObject();
+		generator.writeEndObject();
+	}
+
+	private void flushIfNeeded(JsonGenerator generator, int count) throws IOException {
+		if (flushInterval > 0 && count % flushInterval == 0) {
+			generator.flush();
+		}
+	}
+
+	private static Iterator<?> iterator(Object elements) {
+		if (elements instanceof Stream) {
+			return ((Stream<?>) elements).iterator();
+		}
+		if (elements instanceof Iterator) {
+			return (Iterator<?>) elements;
+		}
+		throw new IllegalArgumentException("Only Stream and Iterator can be streamed: " + elements);
+	}
+
+	private static void close(Object elements) throws IOException {
+		try {
+			if (elements instanceof AutoCloseable) {
+				((AutoCloseable) elements).close();
+			}
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * the elements of a {@link Stream} or an {@link Iterator} to be written in the
+	 * Alfresco <code>list.entries</code> envelope
+	 */
+	public static final class ListEntries {
+
+		private final Object elements;
+
+		public ListEntries(Object elements) {
+			Assert.isTrue(elements instanceof Stream || elements instanceof Iterator,
+					"elements must be a Stream or an Iterator!");
+			this.elements = elements;
+		}
+
+		public Object getElements() {
+			return elements;
+		}
+	}
+
+	/**
+	 * the content is streamed, it must not be buffered to compute a shallow ETag
+	 */
+	private static void disableContentCaching() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes instanceof ServletRequestAttributes) {
+			ShallowEtagHeaderFilter.disableContentCaching(((ServletRequestAttributes) attributes).getRequest());
+		}
+	}
+}
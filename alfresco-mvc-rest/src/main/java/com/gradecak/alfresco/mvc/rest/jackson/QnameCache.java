@@ -0,0 +1,90 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.rest.jackson;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.alfresco.repo.dictionary.DictionaryListener;
+import org.alfresco.repo.tenant.TenantContextHolder;
+import org.springframework.util.Assert;
+
+/**
+ * the names cached by {@link Jackson2QnameSerializer} and
+ * {@link Jackson2QnameDeserializer}, per tenant since each tenant has its own
+ * dictionary. A tenant cache is emptied once full.
+ * <p>
+ * The prefixes might change with the dictionary, registered as a
+ * {@link DictionaryListener} the cache is cleared each time the dictionary is
+ * reloaded.
+ */
+final class QnameCache<K, V> implements DictionaryListener {
+
+	static final int DEFAULT_SIZE = 4096;
+
+	private static final String DEFAULT_TENANT_DOMAIN = "";
+
+	private final int size;
+	private final Map<String, Map<K, V>> tenants = new ConcurrentHashMap<>();
+
+	/**
+	 * @param size the maximum number of cached names per tenant, 0 to disable the
+	 *             cache
+	 */
+	QnameCache(final int size) {
+		Assert.isTrue(size >= 0, "cacheSize must not be negative!");
+		this.size = size;
+	}
+
+	V get(final K key, final Function<K, V> loader) {
+		if (size == 0) {
+			return loader.apply(key);
+		}
+
+		String tenantDomain = TenantContextHolder.getTenantDomain();
+		Map<K, V> cache = tenants.computeIfAbsent(tenantDomain != null ? tenantDomain : DEFAULT_TENANT_DOMAIN,
+				domain -> new ConcurrentHashMap<>());
+		V value = cache.get(key);
+		if (value == null) {
+			value = loader.apply(key);
+			if (cache.size() >= size) {
+				cache.clear();
+			}
+			cache.put(key, value);
+		}
+		return value;
+	}
+
+	void clear() {
+		tenants.clear();
+	}
+
+	@Override
+	public void onDictionaryInit() {
+	}
+
+	@Override
+	public void afterDictionaryInit() {
+		clear();
+	}
+
+	@Override
+	public void afterDictionaryDestroy() {
+		clear();
+	}
+}
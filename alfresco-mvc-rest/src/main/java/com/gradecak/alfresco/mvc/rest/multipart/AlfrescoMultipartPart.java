@@ -0,0 +1,166 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.rest.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.alfresco.service.cmr.repository.ContentWriter;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * a part of an {@link AlfrescoMultipartStream}, its body is read once
+ */
+public final class AlfrescoMultipartPart {
+
+	public static final String DEFAULT_CHECKSUM_ALGORITHM = "SHA-256";
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final FileItemStream item;
+	private final Charset defaultCharset;
+
+	AlfrescoMultipartPart(final FileItemStream item, final Charset defaultCharset) {
+		this.item = item;
+		this.defaultCharset = defaultCharset;
+	}
+
+	public String getName() {
+		return item.getFieldName();
+	}
+
+	/**
+	 * @return the original file name, <code>null</code> for a form field
+	 */
+	public String getFilename() {
+		return item.getName();
+	}
+
+	public String getContentType() {
+		return item.getContentType();
+	}
+
+	public boolean isFormField() {
+		return item.isFormField();
+	}
+
+	public String getHeader(final String name) {
+		return item.getHeaders() != null ? item.getHeaders().getHeader(name) : null;
+	}
+
+	public InputStream getInputStream() throws IOException {
+		return item.openStream();
+	}
+
+	/**
+	 * @return the body decoded with the charset of the part or the default one
+	 */
+	public String getString() throws IOException {
+		MediaType mediaType = getMediaType();
+		Charset charset = mediaType != null && mediaType.getCharset() != null ? mediaType.getCharset()
+				: defaultCharset;
+		try (InputStream in = getInputStream()) {
+			return StreamUtils.copyToString(in, charset);
+		} catch (FileUploadBase.FileUploadIOException e) {
+			throw AlfrescoMultipartStream.translate(e);
+		}
+	}
+
+	public AlfrescoUploadedContent writeTo(final ContentWriter writer) throws IOException {
+		return writeTo(writer, DEFAULT_CHECKSUM_ALGORITHM);
+	}
+
+	/**
+	 * copies the body into the writer as it arrives, the size and the checksum
+	 * are computed on the fly. The mimetype and the encoding of the writer are
+	 * taken from the part unless already set.
+	 * <p>
+	 * The writer is closed even if the upload fails, the handler transaction
+	 * must therefore be rolled back in such a case.
+	 */
+	public AlfrescoUploadedContent writeTo(final ContentWriter writer, final String checksumAlgorithm)
+			throws IOException {
+		Assert.notNull(writer, "writer must not be null!");
+		Assert.hasText(checksumAlgorithm, "checksumAlgorithm must not be empty!");
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(checksumAlgorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalArgumentException("Unknown checksum algorithm: " + checksumAlgorithm, e);
+		}
+
+		MediaType mediaType = getMediaType();
+		if (mediaType != null) {
+			if (writer.getMimetype() == null) {
+				writer.setMimetype(mediaType.getType() + "/" + mediaType.getSubtype());
+			}
+			if (writer.getEncoding() == null && mediaType.getCharset() != null) {
+				writer.setEncoding(mediaType.getCharset().name());
+			}
+		}
+
+		long size = 0;
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = getInputStream(); OutputStream out = writer.getContentOutputStream()) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+				out.write(buffer, 0, read);
+				size += read;
+			}
+		} catch (FileUploadBase.FileUploadIOException e) {
+			throw AlfrescoMultipartStream.translate(e);
+		}
+
+		return new AlfrescoUploadedContent(getName(), getFilename(), size, checksumAlgorithm,
+				toHex(digest.digest()), writer.getContentData());
+	}
+
+	private MediaType getMediaType() {
+		String contentType = getContentType();
+		if (!StringUtils.hasText(contentType)) {
+			return null;
+		}
+		try {
+			return MediaType.parseMediaType(contentType);
+		} catch (InvalidMediaTypeException e) {
+			return null;
+		}
+	}
+
+	private static String toHex(final byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[2 * i] = HEX[(bytes[i] >> 4) & 0x0f];
+			chars[2 * i + 1] = HEX[bytes[i] & 0x0f];
+		}
+		return new String(chars);
+	}
+}
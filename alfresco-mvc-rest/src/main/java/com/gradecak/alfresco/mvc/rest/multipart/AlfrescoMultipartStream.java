@@ -0,0 +1,117 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.rest.multipart;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.springframework.util.Assert;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+
+/**
+ * the parts of a multipart request read as they arrive, nothing is buffered in
+ * memory or in temporary files. A handler declaring an argument of this type
+ * iterates over the parts in the order they have been sent and copies each
+ * file straight into a
+ * {@link org.alfresco.service.cmr.repository.ContentWriter}, see
+ * {@link AlfrescoMultipartPart#writeTo}.
+ * <p>
+ * The body is read once: a part cannot be read anymore once the next one has
+ * been requested and the handler must not access the multipart parameters or
+ * files through Spring, which would parse the whole request first.
+ * <p>
+ * The size limits are enforced while reading, a request exceeding them fails
+ * with a {@link MaxUploadSizeExceededException} as soon as the limit is
+ * reached, or before anything is read if the Content-Length already exceeds
+ * the total limit.
+ */
+public final class AlfrescoMultipartStream {
+
+	private final FileItemIterator iterator;
+	private final Charset defaultCharset;
+
+	private AlfrescoMultipartStream(final FileItemIterator iterator, final Charset defaultCharset) {
+		this.iterator = iterator;
+		this.defaultCharset = defaultCharset;
+	}
+
+	/**
+	 * @param maxPartSize the maximum size in bytes of each part, -1 for no limit
+	 * @param maxSize     the maximum size in bytes of the whole request, -1 for no
+	 *                    limit
+	 * @param charset     the charset of the headers and of the form fields not
+	 *                    declaring their own
+	 */
+	public static AlfrescoMultipartStream parse(final HttpServletRequest request, final long maxPartSize,
+			final long maxSize, final Charset charset) throws IOException {
+		Assert.notNull(request, "request must not be null!");
+		Assert.notNull(charset, "charset must not be null!");
+		if (!ServletFileUpload.isMultipartContent(request)) {
+			throw new MultipartException("Current request is not a multipart request");
+		}
+
+		ServletFileUpload upload = new ServletFileUpload();
+		upload.setFileSizeMax(maxPartSize);
+		upload.setSizeMax(maxSize);
+		upload.setHeaderEncoding(charset.name());
+		try {
+			return new AlfrescoMultipartStream(upload.getItemIterator(request), charset);
+		} catch (FileUploadException | FileUploadBase.FileUploadIOException e) {
+			throw translate(e);
+		}
+	}
+
+	public boolean hasNext() throws IOException {
+		try {
+			return iterator.hasNext();
+		} catch (FileUploadException | FileUploadBase.FileUploadIOException e) {
+			throw translate(e);
+		}
+	}
+
+	/**
+	 * @return the next part, the previous one cannot be read anymore
+	 */
+	public AlfrescoMultipartPart next() throws IOException {
+		if (!hasNext()) {
+			throw new NoSuchElementException("No more parts");
+		}
+		try {
+			return new AlfrescoMultipartPart(iterator.next(), defaultCharset);
+		} catch (FileUploadException | FileUploadBase.FileUploadIOException e) {
+			throw translate(e);
+		}
+	}
+
+	static MultipartException translate(final Exception e) {
+		Throwable cause = e instanceof FileUploadBase.FileUploadIOException ? e.getCause() : e;
+		if (cause instanceof FileUploadBase.SizeException) {
+			return new MaxUploadSizeExceededException(((FileUploadBase.SizeException) cause).getPermittedSize(),
+					cause);
+		}
+		return new MultipartException("Failed to parse multipart servlet request", cause);
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.rest.multipart;
+
+import org.alfresco.service.cmr.repository.ContentData;
+
+/**
+ * a part written by {@link AlfrescoMultipartPart#writeTo}
+ */
+public final class AlfrescoUploadedContent {
+
+	private final String name;
+	private final String filename;
+	private final long size;
+	private final String checksumAlgorithm;
+	private final String checksum;
+	private final ContentData contentData;
+
+	AlfrescoUploadedContent(final String name, final String filename, final long size,
+			final String checksumAlgorithm, final String checksum, final ContentData contentData) {
+		this.name = name;
+		this.filename = filename;
+		this.size = size;
+		this.checksumAlgorithm = checksumAlgorithm;
+		this.checksum = checksum;
+		this.contentData = contentData;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getFilename() {
+		return filename;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public String getChecksumAlgorithm() {
+		return checksumAlgorithm;
+	}
+
+	/**
+	 * @return the lowercase hexadecimal checksum of the body
+	 */
+	public String getChecksum() {
+		return checksum;
+	}
+
+	public ContentData getContentData() {
+		return contentData;
+	}
+}
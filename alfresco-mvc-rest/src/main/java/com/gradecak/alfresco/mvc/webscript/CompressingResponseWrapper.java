@@ -0,0 +1,385 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.webscript;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * compresses the body of a response once it is known to be eligible. The first
+ * bytes, up to the minimum size, are buffered: a smaller body is written as
+ * is, with its Content-Length, a bigger one of a compressible MIME type is
+ * compressed with a pooled {@link Deflater} and its Content-Length dropped.
+ * The partial content, the responses without a body and the responses already
+ * declaring a Content-Encoding are never compressed.
+ * <p>
+ * {@link #finish()} must be called once the response is complete, the body
+ * written afterwards is ignored.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+	private static final int DEFLATER_BUFFER_SIZE = 8192;
+
+	private final ResponseCompression compression;
+	private final String encoding;
+
+	private CompressingOutputStream outputStream;
+	private PrintWriter writer;
+
+	private byte[] buffer;
+	private int count;
+	private boolean decided;
+	private OutputStream target;
+	private Deflater deflater;
+	private long contentLength = -1;
+
+	CompressingResponseWrapper(final HttpServletResponse response, final ResponseCompression compression,
+			final String encoding) {
+		super(response);
+		this.compression = compression;
+		this.encoding = encoding;
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (outputStream == null) {
+			outputStream = new CompressingOutputStream();
+		}
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	@Override
+	public void setContentLength(int len) {
+		setContentLengthLong(len);
+	}
+
+	@Override
+	public void setContentLengthLong(long len) {
+		if (!decided) {
+			contentLength = len;
+		} else if (deflater == null) {
+			super.setContentLengthLong(len);
+		}
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			super.setHeader(name, value);
+		} else if (value != null) {
+			setContentLengthLong(Long.parseLong(value));
+		}
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			super.addHeader(name, value);
+		} else if (value != null) {
+			setContentLengthLong(Long.parseLong(value));
+		}
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+		if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			super.setIntHeader(name, value);
+		} else {
+			setContentLengthLong(value);
+		}
+	}
+
+	@Override
+	public void addIntHeader(String name, int value) {
+		if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			super.addIntHeader(name, value);
+		} else {
+			setContentLengthLong(value);
+		}
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (!decided) {
+			decide(count);
+		}
+		target.flush();
+		super.flushBuffer();
+	}
+
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		if (!decided) {
+			count = 0;
+		} else if (deflater != null) {
+			// the headers are kept, the body starts again with a new compressed stream
+			releaseDeflater();
+			startCompression();
+		}
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		releaseDeflater();
+		decided = false;
+		target = null;
+		count = 0;
+		contentLength = -1;
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		super.sendError(sc);
+		discard();
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		super.sendError(sc, msg);
+		discard();
+	}
+
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		super.sendRedirect(location);
+		discard();
+	}
+
+	/**
+	 * writes the buffered body or the end of the compressed one
+	 */
+	void finish() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (!decided) {
+			if (outputStream == null) {
+				decided = true;
+				if (contentLength >= 0) {
+					super.setContentLengthLong(contentLength);
+				}
+				return;
+			}
+			decide(count);
+		}
+		if (deflater != null) {
+			((DeflaterOutputStream) target).finish();
+			target.flush();
+			// the compressed stream still wraps the released deflater
+			discard();
+		}
+	}
+
+	/**
+	 * returns the deflater to the pool, the response cannot be compressed anymore
+	 */
+	void release() {
+		if (deflater != null) {
+			discard();
+		}
+	}
+
+	/**
+	 * @param size the size of the body known so far, the buffered bytes and the
+	 *             ones being written
+	 */
+	private void decide(long size) throws IOException {
+		decided = true;
+		boolean compressible = isCompressible();
+		if (compressible) {
+			super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		}
+
+		if (compressible && size > 0 && size >= compression.getMinSize()) {
+			super.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+			startCompression();
+		} else {
+			if (contentLength >= 0) {
+				super.setContentLengthLong(contentLength);
+			}
+			target = super.getOutputStream();
+		}
+
+		if (count > 0) {
+			target.write(buffer, 0, count);
+		}
+		buffer = null;
+		count = 0;
+	}
+
+	private boolean isCompressible() {
+		int status = getStatus();
+		if (status == HttpServletResponse.SC_NO_CONTENT || status == HttpServletResponse.SC_PARTIAL_CONTENT
+				|| status == HttpServletResponse.SC_NOT_MODIFIED) {
+			return false;
+		}
+		if (containsHeader(HttpHeaders.CONTENT_ENCODING) || containsHeader(HttpHeaders.CONTENT_RANGE)) {
+			return false;
+		}
+		return compression.isCompressible(getContentType());
+	}
+
+	private void startCompression() {
+		try {
+			deflater = compression.borrow(encoding);
+			target = ResponseCompression.GZIP.equals(encoding)
+					? new GzipOutputStream(super.getOutputStream(), deflater)
+					: new DeflaterOutputStream(super.getOutputStream(), deflater, DEFLATER_BUFFER_SIZE, true);
+		} catch (IOException e) {
+			releaseDeflater();
+			throw new IllegalStateException("Cannot compress the response", e);
+		}
+	}
+
+	private void releaseDeflater() {
+		if (deflater != null) {
+			compression.release(encoding, deflater);
+			deflater = null;
+		}
+	}
+
+	private void discard() {
+		releaseDeflater();
+		decided = true;
+		buffer = null;
+		count = 0;
+		target = OutputStream.nullOutputStream();
+	}
+
+	private final class CompressingOutputStream extends ServletOutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+			if (!decided) {
+				if (ensureBuffer() > count) {
+					buffer[count++] = (byte) b;
+					return;
+				}
+				decide(count + 1L);
+			}
+			target.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (!decided) {
+				if (ensureBuffer() - count >= len) {
+					System.arraycopy(b, off, buffer, count, len);
+					count += len;
+					return;
+				}
+				decide((long) count + len);
+			}
+			target.write(b, off, len);
+		}
+
+		private int ensureBuffer() {
+			if (buffer == null) {
+				buffer = new byte[compression.getMinSize()];
+			}
+			return buffer.length;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// the message converters flush once the body is written, the buffered
+			// bytes are kept until the compression has been decided
+			if (decided) {
+				target.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new UnsupportedOperationException("Non-blocking writes are not supported");
+		}
+	}
+
+	/**
+	 * the gzip format of a pooled deflater, {@link java.util.zip.GZIPOutputStream}
+	 * always creates its own
+	 */
+	private static final class GzipOutputStream extends DeflaterOutputStream {
+
+		private static final byte[] HEADER = { (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+		private final CRC32 crc = new CRC32();
+
+		private GzipOutputStream(final OutputStream out, final Deflater deflater) throws IOException {
+			super(out, deflater, DEFLATER_BUFFER_SIZE, true);
+			out.write(HEADER);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			super.write(b, off, len);
+			crc.update(b, off, len);
+		}
+
+		@Override
+		public void finish() throws IOException {
+			if (!def.finished()) {
+				super.finish();
+				writeInt((int) crc.getValue());
+				writeInt((int) def.getBytesRead());
+			}
+		}
+
+		private void writeInt(int value) throws IOException {
+			out.write(value & 0xff);
+			out.write((value >> 8) & 0xff);
+			out.write((value >> 16) & 0xff);
+			out.write((value >> 24) & 0xff);
+		}
+	}
+}
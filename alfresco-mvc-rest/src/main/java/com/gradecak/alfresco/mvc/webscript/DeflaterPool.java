@@ -0,0 +1,53 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.webscript;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * a bounded pool of {@link Deflater}s. A deflater holds a native buffer of
+ * several hundred KB that is only released by {@link Deflater#end()}, reusing
+ * them avoids both the allocation and the reliance on the finalization of the
+ * discarded ones.
+ */
+class DeflaterPool {
+
+	private final BlockingQueue<Deflater> deflaters;
+	private final int level;
+	private final boolean nowrap;
+
+	DeflaterPool(final int size, final int level, final boolean nowrap) {
+		this.deflaters = new ArrayBlockingQueue<>(size);
+		this.level = level;
+		this.nowrap = nowrap;
+	}
+
+	Deflater borrow() {
+		Deflater deflater = deflaters.poll();
+		return deflater != null ? deflater : new Deflater(level, nowrap);
+	}
+
+	void release(final Deflater deflater) {
+		deflater.reset();
+		if (!deflaters.offer(deflater)) {
+			deflater.end();
+		}
+	}
+}
@@ -16,24 +16,37 @@
 
 package com.gradecak.alfresco.mvc.webscript;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Properties;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Executor;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
@@ -54,18 +67,25 @@ import org.springframework.extensions.webscripts.WebScriptResponse;
 import org.springframework.extensions.webscripts.WrappingWebScriptResponse;
 import org.springframework.extensions.webscripts.servlet.WebScriptServletRequest;
 import org.springframework.extensions.webscripts.servlet.WebScriptServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 import org.springframework.web.context.ConfigurableWebApplicationContext;
 import org.springframework.web.context.ServletContextAware;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
 import org.springframework.web.servlet.DispatcherServlet;
 
+import com.gradecak.alfresco.mvc.rest.config.DefaultAlfrescoMvcServletContextConfiguration;
+
 public class DispatcherWebscript extends AbstractWebScript
-		implements ApplicationListener<ContextRefreshedEvent>, ServletContextAware, ApplicationContextAware {
+		implements ApplicationListener<ContextRefreshedEvent>, ServletContextAware, ApplicationContextAware,
+		DisposableBean {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(DispatcherWebscript.class);
-	private static final int EXTENSION_PATH_REGEXP_GROUP_INDEX = 3;
+	private static final String ASYNC_EXECUTOR_BEAN_NAME = "alfrescoMvcAsyncTaskExecutor";
 
 	protected DispatcherServlet s;
 	private String contextConfigLocation;
@@ -76,6 +96,17 @@ public class DispatcherWebscript extends AbstractWebScript
 	private final EnumSet<ServletConfigOptions> servletConfigOptions = EnumSet.noneOf(ServletConfigOptions.class);
 	private final String servletName;
 	private final boolean inheritGlobalProperties;
+	private boolean async;
+	private long asyncTimeout = WebscriptAsyncContext.DEFAULT_TIMEOUT;
+	private Executor asyncExecutor;
+	private ThreadPoolTaskExecutor fallbackAsyncExecutor;
+	private String cacheControl = "no-cache";
+	private ShallowEtagHeaderFilter shallowEtagHeaderFilter;
+	private int compressionMinSize = ResponseCompression.DEFAULT_MIN_SIZE;
+	private String[] compressionMimeTypes = ResponseCompression.DEFAULT_MIME_TYPES;
+	private ResponseCompression responseCompression;
+	private boolean requestDecompression;
+	private long requestDecompressionMaxSize = InflatingServletInputStream.DEFAULT_MAX_SIZE;
 
 	public DispatcherWebscript() {
 		this("alfresco-mvc.mvc", false);
@@ -104,14 +135,72 @@ public class DispatcherWebscript extends AbstractWebScript
 		}
 
 		final HttpServletResponse sr = wsr.getHttpServletResponse();
-		res.setHeader("Cache-Control", "no-cache");
+		if (StringUtils.hasText(cacheControl)) {
+			// the handlers might replace it
+			res.setHeader("Cache-Control", cacheControl);
+		}
+
+		HttpServletResponse response = responseCompression != null
+				? responseCompression.wrap(origReq.getHttpServletRequest(), sr)
+				: sr;
 
-		WebscriptRequestWrapper wrapper = new WebscriptRequestWrapper(origReq);
+		WebscriptRequestWrapper wrapper = new WebscriptRequestWrapper(origReq, response);
+		if (requestDecompression) {
+			wrapper.decodeContent();
+		}
 		try {
-			s.service(wrapper, sr);
+			service(wrapper, response);
+			dispatchAsyncResult(wrapper);
+			if (response instanceof CompressingResponseWrapper) {
+				((CompressingResponseWrapper) response).finish();
+			}
 
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
 		} catch (Throwable e) {
 			throw new IOException(e);
+		} finally {
+			if (response instanceof CompressingResponseWrapper) {
+				((CompressingResponseWrapper) response).release();
+			}
+		}
+	}
+
+	/**
+	 * the webscript runtime commits the transaction and clears the
+	 * authentication once the webscript returns, the current thread therefore
+	 * waits for the asynchronous processing started by the handler (Callable,
+	 * DeferredResult, CompletableFuture ...) and dispatches its result itself
+	 */
+	private void dispatchAsyncResult(WebscriptRequestWrapper wrapper)
+			throws ServletException, IOException, InterruptedException {
+		WebscriptAsyncContext asyncContext = wrapper.asyncContext;
+		if (asyncContext == null) {
+			return;
+		}
+
+		while (asyncContext.isStarted() && asyncContext.await()) {
+			wrapper.dispatcherType = DispatcherType.ASYNC;
+			try {
+				// as a container does, the dispatch uses the response the processing has
+				// been started with, it might have been wrapped
+				service(wrapper, (HttpServletResponse) asyncContext.getResponse());
+			} catch (ServletException | IOException | RuntimeException e) {
+				asyncContext.fireOnError(e);
+				asyncContext.fireOnComplete();
+				throw e;
+			}
+		}
+		asyncContext.fireOnComplete();
+	}
+
+	private void service(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		if (shallowEtagHeaderFilter != null) {
+			shallowEtagHeaderFilter.doFilter(request, response, (req, res) -> s.service(req, res));
+		} else {
+			s.service(request, response);
 		}
 	}
 
@@ -208,6 +297,166 @@ public class DispatcherWebscript extends AbstractWebScript
 		return servletConfigOptions.toArray(new ServletConfigOptions[0]);
 	}
 
+	/**
+	 * <code>true</code> to let the handlers return a Callable, a
+	 * CompletableFuture or a DeferredResult. The webscript runtime does not
+	 * release the container thread: it waits for the asynchronous result while
+	 * holding the webscript transaction, a request therefore uses two threads.
+	 */
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
+	public boolean isAsync() {
+		return async;
+	}
+
+	/**
+	 * the timeout in milliseconds of the asynchronous processing unless the
+	 * handler sets one, 0 or less means no timeout
+	 */
+	public void setAsyncTimeout(long asyncTimeout) {
+		this.asyncTimeout = asyncTimeout;
+	}
+
+	public long getAsyncTimeout() {
+		return asyncTimeout;
+	}
+
+	/**
+	 * the executor of {@link AsyncContext#start(Runnable)}: the
+	 * <code>alfrescoMvcAsyncTaskExecutor</code> of the servlet context if
+	 * defined, otherwise an executor of this webscript bounded by the same
+	 * <code>mvc.rest.async.*</code> properties and running with the Alfresco
+	 * identity of the request
+	 */
+	synchronized Executor getAsyncExecutor() {
+		if (asyncExecutor == null) {
+			WebApplicationContext wac = s.getWebApplicationContext();
+			if (wac != null && wac.containsBean(ASYNC_EXECUTOR_BEAN_NAME)) {
+				asyncExecutor = wac.getBean(ASYNC_EXECUTOR_BEAN_NAME, Executor.class);
+			} else {
+				fallbackAsyncExecutor = DefaultAlfrescoMvcServletContextConfiguration
+						.createAsyncTaskExecutor(s.getEnvironment());
+				fallbackAsyncExecutor.setThreadNamePrefix(servletName + "-async-");
+				fallbackAsyncExecutor.initialize();
+				asyncExecutor = fallbackAsyncExecutor;
+			}
+		}
+		return asyncExecutor;
+	}
+
+	/**
+	 * shuts down the executor of {@link AsyncContext#start(Runnable)} if it is
+	 * not a bean of the servlet context
+	 */
+	@Override
+	public synchronized void destroy() {
+		if (fallbackAsyncExecutor != null) {
+			fallbackAsyncExecutor.shutdown();
+			fallbackAsyncExecutor = null;
+			asyncExecutor = null;
+		}
+	}
+
+	/**
+	 * the Cache-Control header of all the responses unless a handler sets its
+	 * own, none if empty. Defaults to <code>no-cache</code>.
+	 */
+	public void setCacheControl(String cacheControl) {
+		this.cacheControl = cacheControl;
+	}
+
+	public String getCacheControl() {
+		return cacheControl;
+	}
+
+	/**
+	 * <code>true</code> to buffer the successful GET responses without an ETag in
+	 * order to add a weak ETag hashing their body, a response matching the
+	 * If-None-Match header is then answered with a <code>304 Not Modified</code>
+	 * without a body. The streamed responses are not buffered.
+	 */
+	public void setShallowEtag(boolean shallowEtag) {
+		if (shallowEtag) {
+			ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+			filter.setWriteWeakETag(true);
+			this.shallowEtagHeaderFilter = filter;
+		} else {
+			this.shallowEtagHeaderFilter = null;
+		}
+	}
+
+	public boolean isShallowEtag() {
+		return shallowEtagHeaderFilter != null;
+	}
+
+	/**
+	 * <code>true</code> to compress the responses, with gzip or deflate as
+	 * accepted by the client, once their body reaches the minimum size and if
+	 * their MIME type is one of the compressible ones.
+	 */
+	public void setCompression(boolean compression) {
+		this.responseCompression = compression ? new ResponseCompression(compressionMinSize, compressionMimeTypes)
+				: null;
+	}
+
+	public boolean isCompression() {
+		return responseCompression != null;
+	}
+
+	/**
+	 * the minimum size in bytes of a compressed response body, the first bytes up
+	 * to this size are buffered until the compression is decided. Defaults to
+	 * 2048.
+	 */
+	public void setCompressionMinSize(int compressionMinSize) {
+		this.compressionMinSize = compressionMinSize;
+		setCompression(isCompression());
+	}
+
+	public int getCompressionMinSize() {
+		return compressionMinSize;
+	}
+
+	/**
+	 * the MIME types of the compressed responses, wildcards are allowed. Defaults
+	 * to the text, JSON and XML types.
+	 */
+	public void setCompressionMimeTypes(String... compressionMimeTypes) {
+		Assert.notNull(compressionMimeTypes, "compressionMimeTypes must not be null!");
+		this.compressionMimeTypes = compressionMimeTypes.clone();
+		setCompression(isCompression());
+	}
+
+	public String[] getCompressionMimeTypes() {
+		return compressionMimeTypes.clone();
+	}
+
+	/**
+	 * <code>true</code> to decompress the request bodies sent with a gzip or
+	 * deflate Content-Encoding before they reach the handlers
+	 */
+	public void setRequestDecompression(boolean requestDecompression) {
+		this.requestDecompression = requestDecompression;
+	}
+
+	public boolean isRequestDecompression() {
+		return requestDecompression;
+	}
+
+	/**
+	 * the maximum size in bytes of a decompressed request body, a bigger one is
+	 * answered with a <code>413 Payload Too Large</code>. No limit if negative.
+	 */
+	public void setRequestDecompressionMaxSize(long requestDecompressionMaxSize) {
+		this.requestDecompressionMaxSize = requestDecompressionMaxSize;
+	}
+
+	public long getRequestDecompressionMaxSize() {
+		return requestDecompressionMaxSize;
+	}
+
 	/**
 	 * Internal implementation of the {@link ServletConfig} interface, to be passed
 	 * to the servlet adapter.
@@ -242,33 +491,57 @@ public class DispatcherWebscript extends AbstractWebScript
 	public class WebscriptRequestWrapper extends HttpServletRequestWrapper {
 
 		private WebScriptServletRequest origReq;
+		private String requestURI;
+		private HttpServletResponse response;
+		private WebscriptAsyncContext asyncContext;
+		private DispatcherType dispatcherType = DispatcherType.REQUEST;
+		private String contentEncoding;
+		private ServletInputStream inputStream;
 
 		public WebscriptRequestWrapper(WebScriptServletRequest request) {
+			this(request, null);
+		}
+
+		/**
+		 * the response is required for the asynchronous processing
+		 */
+		public WebscriptRequestWrapper(WebScriptServletRequest request, HttpServletResponse response) {
 			super(request.getHttpServletRequest());
 			this.origReq = request;
+			this.response = response;
 		}
 
+		/**
+		 * the URI seen by Spring MVC is the webscript extension path, it is called
+		 * several times per request (path helper, handler mappings, logging) so it
+		 * is resolved once and kept for the lifetime of the wrapper
+		 */
 		@Override
 		public String getRequestURI() {
-			String uri = super.getRequestURI();
-			if (uri.contains("$")) {
-				uri = uri.replaceAll("\\$", "%24");
+			String uri = this.requestURI;
+			if (uri == null) {
+				uri = resolveRequestURI();
+				this.requestURI = uri;
 			}
+			return uri;
+		}
 
-			String origUri = origReq.getExtensionPath();
-			if (origUri.contains("$")) {
-				origUri = origUri.replaceAll("\\$", "%24");
-			}
+		private String resolveRequestURI() {
+			String uri = encodeDollar(super.getRequestURI());
+			String extensionPath = encodeDollar(origReq.getExtensionPath());
+			String serviceContextPath = origReq.getServiceContextPath();
 
-			Pattern pattern = Pattern.compile("(^" + origReq.getServiceContextPath() + "/)(.*)(/" + origUri + ")");
-			Matcher matcher = pattern.matcher(uri);
+			// the extension path is the last part of the URI following
+			// "<serviceContextPath>/"
+			int start = serviceContextPath.length() + 1;
+			if (uri.length() < start || !uri.startsWith(serviceContextPath) || uri.charAt(start - 1) != '/') {
+				return "";
+			}
 
-			if (matcher.find()) {
-				try {
-					return matcher.group(EXTENSION_PATH_REGEXP_GROUP_INDEX);
-				} catch (Exception e) {
-					// let an empty string be returned
-					LOGGER.warn("no such group (3) in regexp while URI evaluation", e);
+			int extensionStart = uri.length() - extensionPath.length() - 1;
+			for (int i = uri.lastIndexOf('/', extensionStart); i >= start; i = uri.lastIndexOf('/', i - 1)) {
+				if (uri.regionMatches(i + 1, extensionPath, 0, extensionPath.length())) {
+					return uri.substring(i, i + 1 + extensionPath.length());
 				}
 			}
 
@@ -286,6 +559,140 @@ public class DispatcherWebscript extends AbstractWebScript
 		public WebScriptServletRequest getWebScriptServletRequest() {
 			return origReq;
 		}
+
+		/**
+		 * the body is decompressed if it has been sent with a supported
+		 * Content-Encoding, the Content-Encoding and the Content-Length of the
+		 * compressed body are hidden then
+		 */
+		void decodeContent() {
+			this.contentEncoding = InflatingServletInputStream
+					.supportedEncoding(super.getHeader(HttpHeaders.CONTENT_ENCODING));
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (contentEncoding == null) {
+				return super.getInputStream();
+			}
+			if (inputStream == null) {
+				inputStream = new InflatingServletInputStream(super.getInputStream(), contentEncoding,
+						requestDecompressionMaxSize);
+			}
+			return inputStream;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			if (contentEncoding == null) {
+				return super.getReader();
+			}
+			String characterEncoding = getCharacterEncoding();
+			Charset charset = characterEncoding != null ? Charset.forName(characterEncoding)
+					: StandardCharsets.ISO_8859_1;
+			return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+		}
+
+		@Override
+		public int getContentLength() {
+			return contentEncoding == null ? super.getContentLength() : -1;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return contentEncoding == null ? super.getContentLengthLong() : -1;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return isHiddenHeader(name) ? null : super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+			return isHiddenHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			Enumeration<String> headerNames = super.getHeaderNames();
+			if (contentEncoding == null || headerNames == null) {
+				return headerNames;
+			}
+			List<String> names = new ArrayList<>();
+			while (headerNames.hasMoreElements()) {
+				String name = headerNames.nextElement();
+				if (!isHiddenHeader(name)) {
+					names.add(name);
+				}
+			}
+			return Collections.enumeration(names);
+		}
+
+		@Override
+		public int getIntHeader(String name) {
+			return isHiddenHeader(name) ? -1 : super.getIntHeader(name);
+		}
+
+		private boolean isHiddenHeader(String name) {
+			return contentEncoding != null && (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+					|| HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name));
+		}
+
+		@Override
+		public DispatcherType getDispatcherType() {
+			return dispatcherType;
+		}
+
+		@Override
+		public boolean isAsyncSupported() {
+			return async && response != null;
+		}
+
+		@Override
+		public boolean isAsyncStarted() {
+			return asyncContext != null && asyncContext.isStarted();
+		}
+
+		@Override
+		public AsyncContext startAsync() {
+			return startAsync(this, response);
+		}
+
+		@Override
+		public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+			if (!isAsyncSupported()) {
+				throw new IllegalStateException(
+						"Asynchronous processing is not enabled or the webscript response is missing");
+			}
+			if (isAsyncStarted()) {
+				throw new IllegalStateException("Asynchronous processing has already been started");
+			}
+
+			if (asyncContext == null) {
+				asyncContext = new WebscriptAsyncContext(servletRequest, servletResponse,
+						servletRequest == this && servletResponse == response, asyncTimeout, getAsyncExecutor());
+			} else {
+				try {
+					asyncContext.restart();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return asyncContext;
+		}
+
+		@Override
+		public AsyncContext getAsyncContext() {
+			if (!isAsyncStarted()) {
+				throw new IllegalStateException("Asynchronous processing has not been started");
+			}
+			return asyncContext;
+		}
+	}
+
+	private static String encodeDollar(String value) {
+		return value.indexOf('$') < 0 ? value : value.replace("$", "%24");
 	}
 
 	public static enum ServletConfigOptions {
@@ -0,0 +1,122 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.webscript;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+/**
+ * decompresses a request body sent with a gzip or deflate Content-Encoding. The
+ * reading fails with a {@link RequestBodyTooLargeException} once the
+ * decompressed body exceeds the maximum size, a small compressed body might
+ * otherwise inflate to gigabytes.
+ */
+class InflatingServletInputStream extends ServletInputStream {
+
+	static final long DEFAULT_MAX_SIZE = 10L * 1024 * 1024;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final InputStream in;
+	private final long maxSize;
+	private long count;
+	private boolean finished;
+
+	/**
+	 * @param maxSize the maximum size in bytes of the decompressed body, no limit
+	 *                if negative
+	 */
+	InflatingServletInputStream(final InputStream in, final String encoding, final long maxSize)
+			throws IOException {
+		this.in = ResponseCompression.GZIP.equals(encoding) ? new GZIPInputStream(in, BUFFER_SIZE)
+				: new InflaterInputStream(in);
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @return gzip, deflate or <code>null</code> if the body cannot be
+	 *         decompressed
+	 */
+	static String supportedEncoding(final String contentEncoding) {
+		if (contentEncoding == null) {
+			return null;
+		}
+		String encoding = contentEncoding.trim();
+		if (ResponseCompression.GZIP.equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+			return ResponseCompression.GZIP;
+		}
+		return ResponseCompression.DEFLATE.equalsIgnoreCase(encoding) ? ResponseCompression.DEFLATE : null;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = in.read();
+		finished = b < 0;
+		if (!finished) {
+			count(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = in.read(b, off, len);
+		finished = read < 0;
+		if (read > 0) {
+			count(read);
+		}
+		return read;
+	}
+
+	private void count(final int read) throws RequestBodyTooLargeException {
+		count += read;
+		if (maxSize >= 0 && count > maxSize) {
+			throw new RequestBodyTooLargeException(maxSize);
+		}
+	}
+
+	@Override
+	public int available() throws IOException {
+		return in.available();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	@Override
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public boolean isReady() {
+		return true;
+	}
+
+	@Override
+	public void setReadListener(ReadListener readListener) {
+		throw new UnsupportedOperationException("Non-blocking reads are not supported");
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.webscript;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * the decompressed request body exceeds the maximum size, answered with a
+ * <code>413 Payload Too Large</code> even when wrapped by the message
+ * converters
+ */
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class RequestBodyTooLargeException extends IOException {
+
+	private static final long serialVersionUID = 3521387962371489041L;
+
+	private final long maxSize;
+
+	public RequestBodyTooLargeException(final long maxSize) {
+		super("The decompressed request body exceeds the maximum size of " + maxSize + " bytes");
+		this.maxSize = maxSize;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.webscript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * the compression settings of a {@link DispatcherWebscript}: the responses of
+ * one of the configured MIME types reaching the minimum size are compressed
+ * with the encoding negotiated through the Accept-Encoding header, gzip being
+ * preferred over deflate. The server-sent events are never compressed.
+ */
+class ResponseCompression {
+
+	static final String GZIP = "gzip";
+	static final String DEFLATE = "deflate";
+
+	static final int DEFAULT_MIN_SIZE = 2048;
+	static final String[] DEFAULT_MIME_TYPES = { "text/*", "application/json", "application/*+json",
+			"application/x-ndjson", "application/xml", "application/*+xml", "application/javascript" };
+
+	private static final int POOL_SIZE = 32;
+
+	private final int minSize;
+	private final List<MediaType> mimeTypes;
+	private final DeflaterPool gzipDeflaters = new DeflaterPool(POOL_SIZE, Deflater.DEFAULT_COMPRESSION, true);
+	private final DeflaterPool deflateDeflaters = new DeflaterPool(POOL_SIZE, Deflater.DEFAULT_COMPRESSION, false);
+
+	ResponseCompression(final int minSize, final String... mimeTypes) {
+		Assert.isTrue(minSize >= 0, "minSize must not be negative!");
+		this.minSize = minSize;
+		this.mimeTypes = new ArrayList<>();
+		for (String mimeType : mimeTypes) {
+			this.mimeTypes.add(MediaType.parseMediaType(mimeType));
+		}
+	}
+
+	int getMinSize() {
+		return minSize;
+	}
+
+	/**
+	 * @return the compressing response or the response itself if the request
+	 *         does not accept a compressed response
+	 */
+	HttpServletResponse wrap(final HttpServletRequest request, final HttpServletResponse response) {
+		if ("HEAD".equals(request.getMethod())) {
+			return response;
+		}
+		String encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+		return encoding != null ? new CompressingResponseWrapper(response, this, encoding) : response;
+	}
+
+	boolean isCompressible(final String contentType) {
+		if (!StringUtils.hasText(contentType)) {
+			return false;
+		}
+
+		MediaType mediaType;
+		try {
+			mediaType = MediaType.parseMediaType(contentType);
+		} catch (InvalidMediaTypeException e) {
+			return false;
+		}
+		if (MediaType.TEXT_EVENT_STREAM.isCompatibleWith(mediaType)) {
+			return false;
+		}
+		for (MediaType mimeType : mimeTypes) {
+			if (mimeType.includes(mediaType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	Deflater borrow(final String encoding) {
+		return pool(encoding).borrow();
+	}
+
+	void release(final String encoding, final Deflater deflater) {
+		pool(encoding).release(deflater);
+	}
+
+	private DeflaterPool pool(final String encoding) {
+		return GZIP.equals(encoding) ? gzipDeflaters : deflateDeflaters;
+	}
+
+	/**
+	 * @return gzip, deflate or <code>null</code> if none is accepted
+	 */
+	static String negotiate(final String acceptEncoding) {
+		if (!StringUtils.hasText(acceptEncoding)) {
+			return null;
+		}
+
+		float gzip = -1;
+		float deflate = -1;
+		float any = -1;
+		for (String coding : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+			String name = coding;
+			float quality = 1;
+			int separator = coding.indexOf(';');
+			if (separator >= 0) {
+				name = coding.substring(0, separator).trim();
+				quality = quality(coding.substring(separator + 1));
+			}
+
+			if (GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+				gzip = quality;
+			} else if (DEFLATE.equalsIgnoreCase(name)) {
+				deflate = quality;
+			} else if ("*".equals(name)) {
+				any = quality;
+			}
+		}
+
+		if (gzip < 0) {
+			gzip = any;
+		}
+		if (deflate < 0) {
+			deflate = any;
+		}
+		if (gzip > 0 && gzip >= deflate) {
+			return GZIP;
+		}
+		return deflate > 0 ? DEFLATE : null;
+	}
+
+	private static float quality(final String parameters) {
+		for (String parameter : StringUtils.tokenizeToStringArray(parameters, ";")) {
+			if (parameter.startsWith("q=")) {
+				try {
+					return Float.parseFloat(parameter.substring(2));
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.webscript;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.BeanUtils;
+
+/**
+ * the {@link AsyncContext} of a {@link DispatcherWebscript.WebscriptRequestWrapper}.
+ * The webscript runtime does not allow the container thread to be released, it
+ * therefore waits in {@link #await()} for the asynchronous processing to
+ * request a dispatch or to complete and performs the dispatch itself. The
+ * asynchronous processing does not free the container thread, it is therefore
+ * disabled unless {@link DispatcherWebscript#setAsync(boolean)}.
+ */
+class WebscriptAsyncContext implements AsyncContext {
+
+	static final long DEFAULT_TIMEOUT = 30000L;
+
+	private enum State {
+		STARTED, DISPATCH_REQUESTED, DISPATCHING, COMPLETED
+	}
+
+	private final List<ListenerRegistration> listeners = new ArrayList<>();
+	private final ServletRequest request;
+	private final ServletResponse response;
+	private final boolean originalRequestAndResponse;
+	private final Executor executor;
+
+	private State state = State.STARTED;
+	private boolean completeNotified;
+	private long timeout;
+
+	WebscriptAsyncContext(final ServletRequest request, final ServletResponse response,
+			final boolean originalRequestAndResponse, final long timeout, final Executor executor) {
+		this.request = request;
+		this.response = response;
+		this.originalRequestAndResponse = originalRequestAndResponse;
+		this.timeout = timeout;
+		this.executor = executor;
+	}
+
+	public ServletRequest getRequest() {
+		return request;
+	}
+
+	public ServletResponse getResponse() {
+		return response;
+	}
+
+	public boolean hasOriginalRequestAndResponse() {
+		return originalRequestAndResponse;
+	}
+
+	public synchronized void dispatch() {
+		if (state == State.STARTED) {
+			state = State.DISPATCH_REQUESTED;
+			notifyAll();
+		} else if (state != State.DISPATCH_REQUESTED) {
+			throw new IllegalStateException("Cannot dispatch, the asynchronous processing is " + state);
+		}
+	}
+
+	public void dispatch(final String path) {
+		throw new UnsupportedOperationException("Only the dispatch to the Alfresco @MVC dispatcher is supported");
+	}
+
+	public void dispatch(final ServletContext context, final String path) {
+		throw new UnsupportedOperationException("Only the dispatch to the Alfresco @MVC dispatcher is supported");
+	}
+
+	public synchronized void complete() {
+		if (state != State.COMPLETED) {
+			state = State.COMPLETED;
+			notifyAll();
+		}
+	}
+
+	public void start(final Runnable run) {
+		executor.execute(run);
+	}
+
+	public void addListener(final AsyncListener listener) {
+		addListener(listener, request, response);
+	}
+
+	public synchronized void addListener(final AsyncListener listener, final ServletRequest servletRequest,
+			final ServletResponse servletResponse) {
+		listeners.add(new ListenerRegistration(listener, servletRequest, servletResponse));
+	}
+
+	public <T extends AsyncListener> T createListener(final Class<T> clazz) throws ServletException {
+		try {
+			return BeanUtils.instantiateClass(clazz);
+		} catch (RuntimeException e) {
+			throw new ServletException(e);
+		}
+	}
+
+	public synchronized void setTimeout(final long timeout) {
+		this.timeout = timeout;
+	}
+
+	public synchronized long getTimeout() {
+		return timeout;
+	}
+
+	synchronized boolean isStarted() {
+		return state == State.STARTED || state == State.DISPATCH_REQUESTED;
+	}
+
+	/**
+	 * restarts the asynchronous processing during an asynchronous dispatch, the
+	 * registered listeners are notified and removed as they are expected to
+	 * register again
+	 */
+	void restart() throws IOException {
+		List<ListenerRegistration> registrations;
+		synchronized (this) {
+			if (state != State.DISPATCHING) {
+				throw new IllegalStateException("Cannot start the asynchronous processing, it is " + state);
+			}
+			state = State.STARTED;
+			registrations = new ArrayList<>(listeners);
+			listeners.clear();
+		}
+		for (ListenerRegistration registration : registrations) {
+			registration.listener.onStartAsync(registration.event(this, null));
+		}
+	}
+
+	/**
+	 * waits for the asynchronous processing to request a dispatch or to complete,
+	 * the listeners are notified on timeout
+	 * 
+	 * @return <code>true</code> if a dispatch has been requested,
+	 *         <code>false</code> if the processing is completed
+	 */
+	boolean await() throws IOException, InterruptedException {
+		if (awaitStateChange()) {
+			return enterDispatch();
+		}
+
+		for (ListenerRegistration registration : listenerRegistrations()) {
+			registration.listener.onTimeout(registration.event(this, null));
+		}
+
+		synchronized (this) {
+			if (state == State.STARTED) {
+				// no listener took care of the timeout
+				state = State.COMPLETED;
+				if (response instanceof HttpServletResponse && !response.isCommitted()) {
+					((HttpServletResponse) response).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+				}
+			}
+		}
+		return enterDispatch();
+	}
+
+	private synchronized boolean awaitStateChange() throws InterruptedException {
+		long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+		while (state == State.STARTED) {
+			if (deadline == 0) {
+				wait();
+			} else {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				wait(remaining);
+			}
+		}
+		return true;
+	}
+
+	private boolean enterDispatch() throws IOException {
+		synchronized (this) {
+			if (state == State.DISPATCH_REQUESTED) {
+				state = State.DISPATCHING;
+				return true;
+			}
+		}
+		fireOnComplete();
+		return false;
+	}
+
+	void fireOnComplete() throws IOException {
+		synchronized (this) {
+			state = State.COMPLETED;
+			if (completeNotified) {
+				return;
+			}
+			completeNotified = true;
+		}
+		for (ListenerRegistration registration : listenerRegistrations()) {
+			registration.listener.onComplete(registration.event(this, null));
+		}
+	}
+
+	void fireOnError(final Throwable throwable) throws IOException {
+		for (ListenerRegistration registration : listenerRegistrations()) {
+			registration.listener.onError(registration.event(this, throwable));
+		}
+	}
+
+	private synchronized List<ListenerRegistration> listenerRegistrations() {
+		return new ArrayList<>(listeners);
+	}
+
+	private static final class ListenerRegistration {
+
+		private final AsyncListener listener;
+		private final ServletRequest request;
+		private final ServletResponse response;
+
+		private ListenerRegistration(final AsyncListener listener, final ServletRequest request,
+				final ServletResponse response) {
+			this.listener = listener;
+			this.request = request;
+			this.response = response;
+		}
+
+		private AsyncEvent event(final AsyncContext context, final Throwable throwable) {
+			return new AsyncEvent(context, request, response, throwable);
+		}
+	}
+}
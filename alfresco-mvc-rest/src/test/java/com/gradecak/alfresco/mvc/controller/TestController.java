@@ -16,12 +16,27 @@
 
 package com.gradecak.alfresco.mvc.controller;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.alfresco.repo.content.filestore.FileContentReader;
+import org.alfresco.repo.content.filestore.FileContentWriter;
+import org.alfresco.service.cmr.repository.ContentReader;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.namespace.QName;
 import org.springframework.core.io.ClassPathResource;
@@ -39,8 +54,17 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.gradecak.alfresco.mvc.rest.AlfrescoETags;
+import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoCacheControl;
+import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoIfMatch;
 import com.gradecak.alfresco.mvc.rest.annotation.AlfrescoRestResponse;
+import com.gradecak.alfresco.mvc.rest.content.AlfrescoContent;
+import com.gradecak.alfresco.mvc.rest.multipart.AlfrescoMultipartPart;
+import com.gradecak.alfresco.mvc.rest.multipart.AlfrescoMultipartStream;
+import com.gradecak.alfresco.mvc.rest.multipart.AlfrescoUploadedContent;
 
 @Controller
 @RequestMapping("/test")
@@ -115,6 +139,15 @@ public class TestController {
 						"alfresco/extension/templates/webscripts/alfresco-mvc/mvc.delete.desc.xml"));
 	}
 
+	@GetMapping(value = "content")
+	public AlfrescoContent content() throws IOException {
+		ContentReader reader = new FileContentReader(new ClassPathResource(
+				"alfresco/extension/templates/webscripts/alfresco-mvc/mvc.delete.desc.xml").getFile());
+		reader.setMimetype("text/xml");
+		reader.setEncoding("UTF-8");
+		return AlfrescoContent.of(reader).asAttachment("mvc.delete.desc.xml");
+	}
+
 	@GetMapping(value = "noderef")
 	public ResponseEntity<NodeRef> noderefParam(@RequestParam(required = false) NodeRef nodeRef) throws IOException {
 		return ResponseEntity.ok(nodeRef != null ? nodeRef : new NodeRef("a://a/a"));
@@ -151,6 +184,120 @@ public class TestController {
 		return ResponseEntity.ok(regexpchars);
 	}
 
+	@GetMapping(value = "async/callable")
+	public Callable<ResponseEntity<?>> asyncCallable(@RequestParam String id) {
+		return () -> ResponseEntity.ok(id + ":" + Thread.currentThread().getName());
+	}
+
+	@GetMapping(value = "async/completableFuture")
+	public CompletableFuture<ResponseEntity<?>> asyncCompletableFuture(@RequestParam String id) {
+		return CompletableFuture.supplyAsync(() -> ResponseEntity.ok(id));
+	}
+
+	@GetMapping(value = "async/deferredResult")
+	public DeferredResult<ResponseEntity<?>> asyncDeferredResult(@RequestParam String id) {
+		DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+		new Thread(() -> result.setResult(ResponseEntity.ok(id))).start();
+		return result;
+	}
+
+	@GetMapping(value = "async/start")
+	public void asyncStart(HttpServletRequest request, HttpServletResponse response, @RequestParam String id) {
+		AsyncContext asyncContext = request.startAsync();
+		asyncContext.start(() -> {
+			try {
+				response.getWriter().write(id + ":" + Thread.currentThread().getName());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				asyncContext.complete();
+			}
+		});
+	}
+
+	@GetMapping(value = "async/timeout")
+	public DeferredResult<ResponseEntity<?>> asyncTimeout() {
+		return new DeferredResult<>(100L);
+	}
+
+	@GetMapping(value = "stream")
+	public Stream<String> stream() {
+		return Stream.of("a", "b", "c");
+	}
+
+	@GetMapping(value = "streamAlfrescoResponse")
+	@AlfrescoRestResponse
+	public ResponseEntity<Stream<String>> streamAlfrescoResponse() {
+		return ResponseEntity.ok(Stream.of("a", "b", "c"));
+	}
+
+	@RequestMapping(value = "upload", method = { RequestMethod.POST })
+	public ResponseEntity<Map<String, Object>> upload(AlfrescoMultipartStream parts) throws IOException {
+		Map<String, Object> result = new HashMap<>();
+		while (parts.hasNext()) {
+			AlfrescoMultipartPart part = parts.next();
+			if (part.isFormField()) {
+				result.put(part.getName(), part.getString());
+			} else {
+				File file = File.createTempFile("alfresco-mvc-upload", ".tmp");
+				file.deleteOnExit();
+				AlfrescoUploadedContent content = part.writeTo(new FileContentWriter(file));
+				result.put("filename", content.getFilename());
+				result.put("size", content.getSize());
+				result.put("checksum", content.getChecksum());
+				result.put("mimetype", content.getContentData().getMimetype());
+			}
+		}
+		return ResponseEntity.ok(result);
+	}
+
+	@GetMapping(value = "compressible")
+	public ResponseEntity<List<String>> compressible() {
+		return ResponseEntity.ok(Collections.nCopies(500, "compressible"));
+	}
+
+	@GetMapping(value = "compressible/single")
+	public void compressibleSingle(HttpServletResponse response) throws IOException {
+		response.setContentType("text/plain");
+		response.getOutputStream().write("compressible".repeat(500).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@GetMapping(value = "compressible/closed")
+	public void compressibleClosed(HttpServletResponse response) throws IOException {
+		response.setContentType("text/plain");
+		ServletOutputStream outputStream = response.getOutputStream();
+		outputStream.write("compressible".repeat(500).getBytes(StandardCharsets.UTF_8));
+		outputStream.close();
+		outputStream.write("ignored".getBytes(StandardCharsets.UTF_8));
+		outputStream.flush();
+	}
+
+	@GetMapping(value = "cacheControl")
+	@AlfrescoCacheControl(maxAge = 60, cachePrivate = true)
+	public ResponseEntity<?> cacheControl() {
+		return ResponseEntity.ok("cached");
+	}
+
+	@GetMapping(value = "etag")
+	public ResponseEntity<?> etag(WebRequest webRequest) {
+		if (webRequest.checkNotModified(AlfrescoETags.of("etag"))) {
+			return null;
+		}
+		return ResponseEntity.ok("etag");
+	}
+
+	@RequestMapping(value = "ifMatch/{nodeRef}", method = { RequestMethod.PUT })
+	@AlfrescoIfMatch(required = true)
+	public ResponseEntity<?> ifMatch(@PathVariable NodeRef nodeRef) {
+		return ResponseEntity.ok().build();
+	}
+
+	@RequestMapping(value = "ifMatch", method = { RequestMethod.PUT })
+	@AlfrescoIfMatch
+	public ResponseEntity<?> ifMatchParameter(@RequestParam(required = false) NodeRef nodeRef) {
+		return ResponseEntity.ok().build();
+	}
+
 	@ExceptionHandler({ IllegalArgumentException.class })
 	public ResponseEntity<?> handleIllegalArgumentException(IllegalArgumentException exc) {
 		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).header("error", "internal server error").build();
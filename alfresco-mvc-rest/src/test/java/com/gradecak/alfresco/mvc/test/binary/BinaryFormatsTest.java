@@ -0,0 +1,121 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.test.binary;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.ContextHierarchy;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.gradecak.alfresco.mvc.webscript.DispatcherWebscript;
+import com.gradecak.alfresco.mvc.webscript.mock.MockWebscript;
+import com.gradecak.alfresco.mvc.webscript.mock.MockWebscriptBuilder;
+
+@ExtendWith(SpringExtension.class)
+@ContextHierarchy({ @ContextConfiguration(locations = { "/mock-alfresco-context.xml", "/test-restjsonmodule.xml" }),
+		@ContextConfiguration(classes = AlfrescoMvcBinaryFormatsModuleConfiguration.class) })
+@TestPropertySource(properties = { "mvc.rest.jackson.smile=true", "mvc.rest.jackson.cbor=true" })
+@WebAppConfiguration
+@TestInstance(Lifecycle.PER_CLASS)
+public class BinaryFormatsTest {
+
+	private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+	private static final MediaType APPLICATION_CBOR = new MediaType("application", "cbor");
+
+	private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+	private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+	@Autowired
+	private DispatcherWebscript webScript;
+
+	private MockWebscript mockWebscript;
+
+	@BeforeAll
+	public void beforeAll() throws Exception {
+		mockWebscript = MockWebscriptBuilder.singleWebscript(webScript);
+	}
+
+	@BeforeEach
+	public void before() throws Exception {
+		mockWebscript.newRequest();
+	}
+
+	@Test
+	public void when_noAccept_expect_json() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/noderef/abc").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		Assertions.assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(res.getContentType())));
+		Assertions.assertEquals("\"abc\"", res.getContentAsString());
+	}
+
+	@Test
+	public void when_acceptSmile_expect_smileWithSharedSerializers() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/noderef/abc")
+				.withHeaders(Map.of(HttpHeaders.ACCEPT, APPLICATION_SMILE.toString())).execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		Assertions.assertTrue(APPLICATION_SMILE.isCompatibleWith(MediaType.parseMediaType(res.getContentType())));
+		Assertions.assertEquals("abc", smileMapper.readValue(res.getContentAsByteArray(), String.class));
+	}
+
+	@Test
+	public void when_acceptCbor_expect_cborWithSharedSerializers() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/noderef/abc")
+				.withHeaders(Map.of(HttpHeaders.ACCEPT, APPLICATION_CBOR.toString())).execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		Assertions.assertTrue(APPLICATION_CBOR.isCompatibleWith(MediaType.parseMediaType(res.getContentType())));
+		Assertions.assertEquals("abc", cborMapper.readValue(res.getContentAsByteArray(), String.class));
+	}
+
+	@Test
+	public void when_smileBody_expect_readBySmileConverter() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withPostRequest().withContentType(APPLICATION_SMILE.toString())
+				.withContent(smileMapper.writeValueAsBytes(Map.of("id", "testId")))
+				.withControllerMapping("test/body").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		Assertions.assertEquals("testId", res.getHeaderValue("id"));
+	}
+
+	@Test
+	public void when_acceptSmileWithAlfrescoResponse_expect_processedByInterceptor() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/noderefAlfrescoResponse")
+				.withHeaders(Map.of(HttpHeaders.ACCEPT, APPLICATION_SMILE.toString())).execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+
+		// as in AlfrescoMvcRestTest the mocked webscript helper returns no body once
+		// the response is processed by AlfrescoApiResponseInterceptor
+		Assertions.assertEquals(0, res.getContentAsByteArray().length);
+	}
+}
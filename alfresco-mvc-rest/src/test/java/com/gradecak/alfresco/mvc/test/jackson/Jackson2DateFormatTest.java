@@ -0,0 +1,193 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.test.jackson;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.OptBoolean;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2DateFormat;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2JavaTimeModule;
+
+public class Jackson2DateFormatTest {
+
+	private static final Date DATE = new Date(1627812930123L);
+	private static final String WIRE_DATE = "2021-08-01T10:15:30.123+0000";
+
+	@Test
+	public void when_formatting_expect_sameTextAsSimpleDateFormat() {
+		SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+		simpleDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+		Jackson2DateFormat dateFormat = new Jackson2DateFormat();
+
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			Date date = new Date(Math.floorMod(random.nextLong(), 253402300799999L));
+			String text = simpleDateFormat.format(date);
+			Assertions.assertEquals(text, dateFormat.format(date));
+			Assertions.assertEquals(date.getTime(), dateFormat.parseInstant(text).toEpochMilli());
+		}
+
+		Jackson2DateFormat clone = dateFormat.clone();
+		Assertions.assertEquals(dateFormat, clone);
+		clone.setTimeZone(TimeZone.getTimeZone("Europe/Paris"));
+		Assertions.assertEquals("2021-08-01T12:15:30.123+0200", clone.format(DATE));
+		Assertions.assertEquals(WIRE_DATE, dateFormat.format(DATE));
+	}
+
+	@Test
+	public void when_dates_expect_wireFormatKept() throws Exception {
+		ObjectMapper objectMapper = objectMapper(new Jackson2DateFormat());
+
+		Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("Europe/Paris"));
+		calendar.setTime(DATE);
+		Assertions.assertEquals("[\"" + WIRE_DATE + "\",\"" + WIRE_DATE + "\"]",
+				objectMapper.writeValueAsString(List.of(DATE, calendar)));
+
+		Assertions.assertEquals(DATE, objectMapper.readValue("\"" + WIRE_DATE + "\"", Date.class));
+		Assertions.assertEquals(DATE, objectMapper.readValue("\"2021-08-01T12:15:30.123+02:00\"", Date.class));
+		Assertions.assertEquals(DATE.getTime(),
+				objectMapper.readValue("\"" + WIRE_DATE + "\"", Calendar.class).getTimeInMillis());
+		Assertions.assertThrows(InvalidFormatException.class,
+				() -> objectMapper.readValue("\"yesterday\"", Date.class));
+	}
+
+	@Test
+	public void when_javaTime_expect_sameFormatAsDates() throws Exception {
+		ObjectMapper objectMapper = objectMapper(new Jackson2DateFormat());
+		Instant instant = DATE.toInstant();
+
+		Assertions.assertEquals("[\"" + WIRE_DATE + "\",\"" + WIRE_DATE + "\",\"" + WIRE_DATE + "\"]",
+				objectMapper.writeValueAsString(List.of(instant, instant.atOffset(ZoneOffset.ofHours(2)),
+						instant.atZone(ZoneId.of("Europe/Paris")))));
+
+		Assertions.assertEquals(instant, objectMapper.readValue("\"" + WIRE_DATE + "\"", Instant.class));
+		Assertions.assertEquals(instant, objectMapper.readValue("1627812930123", Instant.class));
+		Assertions.assertEquals(instant.atOffset(ZoneOffset.UTC),
+				objectMapper.readValue("\"2021-08-01T12:15:30.123+02:00\"", OffsetDateTime.class));
+		Assertions.assertEquals(instant.atZone(ZoneOffset.UTC),
+				objectMapper.readValue("\"" + WIRE_DATE + "\"", ZonedDateTime.class));
+
+		Map<String, Instant> values = objectMapper.readValue("{\"created\":\"2021-08-01\",\"modified\":null}",
+				new TypeReference<Map<String, Instant>>() {
+				});
+		Assertions.assertEquals(Instant.parse("2021-08-01T00:00:00Z"), values.get("created"));
+		Assertions.assertNull(values.get("modified"));
+	}
+
+	@Test
+	public void when_otherPatternAndZone_expect_appliedToAllTypes() throws Exception {
+		ObjectMapper objectMapper = objectMapper(
+				new Jackson2DateFormat("dd.MM.yyyy HH:mm", ZoneId.of("Europe/Paris")));
+
+		Assertions.assertEquals("[\"01.08.2021 12:15\",\"01.08.2021 12:15\"]",
+				objectMapper.writeValueAsString(List.of(DATE, DATE.toInstant())));
+		Assertions.assertEquals(new Date(1627812900000L), objectMapper.readValue("\"01.08.2021 12:15\"", Date.class));
+		Assertions.assertEquals(DATE, objectMapper.readValue("\"" + WIRE_DATE + "\"", Date.class));
+	}
+
+	@Test
+	public void when_jsonFormatTimeZone_expect_appliedWithThePattern() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().setDateFormat(new Jackson2DateFormat());
+
+		Assertions.assertEquals("{\"date\":\"2021-08-01T12:15:30.123+0200\"}",
+				objectMapper.writeValueAsString(new ParisDate(DATE)));
+		Assertions.assertEquals(DATE,
+				objectMapper.readValue("{\"date\":\"2021-08-01T12:15:30.123\"}", ParisDate.class).date);
+	}
+
+	@Test
+	public void when_jsonFormatShapeString_expect_pattern() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().setDateFormat(new Jackson2DateFormat());
+
+		Assertions.assertEquals("{\"date\":\"" + WIRE_DATE + "\"}",
+				objectMapper.writeValueAsString(new StringDate(DATE)));
+	}
+
+	@Test
+	public void when_jsonFormatLenient_expect_invalidDatesResolvedOrRejected() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().setDateFormat(new Jackson2DateFormat());
+
+		Assertions.assertEquals(Date.from(Instant.parse("2021-03-02T00:00:00Z")),
+				objectMapper.readValue("{\"lenient\":\"2021-02-30\"}", LenientDates.class).lenient);
+		Assertions.assertEquals(DATE,
+				objectMapper.readValue("{\"strict\":\"" + WIRE_DATE + "\"}", LenientDates.class).strict);
+		Assertions.assertThrows(InvalidFormatException.class,
+				() -> objectMapper.readValue("{\"strict\":\"2021-02-30\"}", LenientDates.class));
+	}
+
+	@Test
+	public void when_objectMapperTimeZone_expect_appliedWithThePattern() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().setDateFormat(new Jackson2DateFormat())
+				.setTimeZone(TimeZone.getTimeZone("Europe/Paris"));
+
+		Assertions.assertEquals("\"2021-08-01T12:15:30.123+0200\"", objectMapper.writeValueAsString(DATE));
+		Assertions.assertEquals(DATE, objectMapper.readValue("\"2021-08-01T12:15:30.123\"", Date.class));
+	}
+
+	static class ParisDate {
+		@JsonFormat(timezone = "Europe/Paris")
+		public Date date;
+
+		ParisDate() {
+		}
+
+		ParisDate(Date date) {
+			this.date = date;
+		}
+	}
+
+	static class StringDate {
+		@JsonFormat(shape = JsonFormat.Shape.STRING)
+		public Date date;
+
+		StringDate(Date date) {
+			this.date = date;
+		}
+	}
+
+	static class LenientDates {
+		@JsonFormat(lenient = OptBoolean.TRUE)
+		public Date lenient;
+
+		@JsonFormat(lenient = OptBoolean.FALSE)
+		public Date strict;
+	}
+
+	private ObjectMapper objectMapper(Jackson2DateFormat dateFormat) {
+		return new ObjectMapper().setDateFormat(dateFormat).registerModule(new Jackson2JavaTimeModule(dateFormat));
+	}
+}
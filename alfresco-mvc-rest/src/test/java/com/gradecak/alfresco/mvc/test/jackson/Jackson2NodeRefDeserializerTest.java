@@ -0,0 +1,83 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.test.jackson;
+
+import java.util.List;
+
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.StoreRef;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2NodeRefDeserializer;
+
+public class Jackson2NodeRefDeserializerTest {
+
+	private static final String ID = "0b8b4f6e-6a4c-4d4f-9f3a-3b6c2a1d9e01";
+
+	@Test
+	public void when_convert_expect_sameNodeRefAsNodeRefParsing() {
+		Jackson2NodeRefDeserializer deserializer = new Jackson2NodeRefDeserializer();
+
+		Assertions.assertEquals(new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, ID), deserializer.convert(ID));
+		Assertions.assertEquals(new NodeRef("workspace://SpacesStore/" + ID),
+				deserializer.convert("workspace://SpacesStore/" + ID));
+		Assertions.assertEquals(new NodeRef("archive://SpacesStore/" + ID),
+				deserializer.convert("archive://SpacesStore/" + ID));
+		Assertions.assertEquals(new NodeRef("workspace://SpacesStore/a/b"),
+				deserializer.convert("workspace://SpacesStore/a/b"));
+		Assertions.assertEquals(new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, "a/b"),
+				deserializer.convert("a/b"));
+		Assertions.assertNull(deserializer.convert(""));
+	}
+
+	@Test
+	public void when_deserializeWithoutCache_expect_distinctInstances() throws Exception {
+		List<NodeRef> nodeRefs = read(new Jackson2NodeRefDeserializer());
+
+		Assertions.assertEquals(new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, ID), nodeRefs.get(0));
+		Assertions.assertEquals(nodeRefs.get(0), nodeRefs.get(1));
+		Assertions.assertEquals(nodeRefs.get(0), nodeRefs.get(2));
+		Assertions.assertNotSame(nodeRefs.get(0), nodeRefs.get(1));
+	}
+
+	@Test
+	public void when_deserializeWithCache_expect_sharedInstances() throws Exception {
+		List<NodeRef> nodeRefs = read(new Jackson2NodeRefDeserializer(16));
+
+		Assertions.assertEquals(new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, ID), nodeRefs.get(0));
+		Assertions.assertSame(nodeRefs.get(0), nodeRefs.get(1));
+		// the cache is keyed by the raw value
+		Assertions.assertEquals(nodeRefs.get(0), nodeRefs.get(2));
+		Assertions.assertNotSame(nodeRefs.get(0), nodeRefs.get(2));
+	}
+
+	private List<NodeRef> read(Jackson2NodeRefDeserializer deserializer) throws Exception {
+		SimpleModule module = new SimpleModule();
+		module.addDeserializer(NodeRef.class, deserializer);
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(module);
+
+		String json = "[\"workspace://SpacesStore/" + ID + "\", \"workspace://SpacesStore/" + ID + "\", \"" + ID
+				+ "\"]";
+		return objectMapper.readValue(json, new TypeReference<List<NodeRef>>() {
+		});
+	}
+}
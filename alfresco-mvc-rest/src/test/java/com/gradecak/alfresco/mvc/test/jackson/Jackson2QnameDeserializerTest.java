@@ -0,0 +1,99 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.test.jackson;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.repo.tenant.TenantContextHolder;
+import org.alfresco.service.namespace.NamespaceService;
+import org.alfresco.service.namespace.QName;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2QnameDeserializer;
+
+public class Jackson2QnameDeserializerTest {
+
+	private static final String CM_URI = NamespaceService.CONTENT_MODEL_1_0_URI;
+	private static final QName NAME = QName.createQName(CM_URI, "name");
+	private static final QName TITLE = QName.createQName(CM_URI, "title");
+
+	@Test
+	public void when_fullName_expect_noNamespaceLookup() {
+		NamespaceService namespaceService = mock(NamespaceService.class);
+		Jackson2QnameDeserializer deserializer = new Jackson2QnameDeserializer(namespaceService);
+
+		Assertions.assertEquals(NAME, deserializer.convert("{" + CM_URI + "}name"));
+		verifyNoInteractions(namespaceService);
+	}
+
+	@Test
+	public void when_prefixedNames_expect_resolvedOnceUntilDictionaryReload() throws Exception {
+		NamespaceService namespaceService = mock(NamespaceService.class);
+		when(namespaceService.getNamespaceURI("cm")).thenReturn(CM_URI);
+		Jackson2QnameDeserializer deserializer = new Jackson2QnameDeserializer(namespaceService);
+
+		SimpleModule module = new SimpleModule();
+		module.addDeserializer(QName.class, deserializer);
+		module.addKeyDeserializer(QName.class, deserializer.getKeyDeserializer());
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(module);
+
+		List<QName> qnames = objectMapper.readValue("[\"cm:name\", \"cm:name\", \"cm:name\"]",
+				new TypeReference<List<QName>>() {
+				});
+		Assertions.assertEquals(List.of(NAME, NAME, NAME), qnames);
+
+		Map<QName, QName> properties = objectMapper.readValue("{\"cm:name\": \"cm:title\"}",
+				new TypeReference<Map<QName, QName>>() {
+				});
+		Assertions.assertEquals(Map.of(NAME, TITLE), properties);
+		verify(namespaceService, times(2)).getNamespaceURI("cm");
+
+		deserializer.getDictionaryListener().afterDictionaryInit();
+		Assertions.assertEquals(NAME, deserializer.convert("cm:name"));
+		verify(namespaceService, times(3)).getNamespaceURI("cm");
+	}
+
+	@Test
+	public void when_prefixedNameInAnotherTenant_expect_resolvedWithItsDictionary() {
+		NamespaceService namespaceService = mock(NamespaceService.class);
+		when(namespaceService.getNamespaceURI("cm"))
+				.thenAnswer(invocation -> TenantContextHolder.getTenantDomain() == null ? CM_URI : "tenant");
+		Jackson2QnameDeserializer deserializer = new Jackson2QnameDeserializer(namespaceService);
+
+		Assertions.assertEquals(NAME, deserializer.convert("cm:name"));
+		TenantContextHolder.setTenantDomain("acme");
+		try {
+			Assertions.assertEquals(QName.createQName("tenant", "name"), deserializer.convert("cm:name"));
+		} finally {
+			TenantContextHolder.clearTenantContext();
+		}
+		Assertions.assertEquals(NAME, deserializer.convert("cm:name"));
+		verify(namespaceService, times(2)).getNamespaceURI("cm");
+	}
+}
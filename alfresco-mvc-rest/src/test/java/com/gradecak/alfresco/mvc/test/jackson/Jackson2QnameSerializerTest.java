@@ -0,0 +1,88 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gradecak.alfresco.mvc.test.jackson;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.service.namespace.NamespaceService;
+import org.alfresco.service.namespace.QName;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.gradecak.alfresco.mvc.rest.jackson.Jackson2QnameSerializer;
+
+public class Jackson2QnameSerializerTest {
+
+	private static final String CM_URI = NamespaceService.CONTENT_MODEL_1_0_URI;
+	private static final QName NAME = QName.createQName(CM_URI, "name");
+	private static final QName TITLE = QName.createQName(CM_URI, "title");
+	private static final QName CUSTOM = QName.createQName("custom", "value");
+
+	@Test
+	public void when_notPrefixed_expect_fullNamesForValuesAndKeys() throws Exception {
+		ObjectMapper objectMapper = objectMapper(new Jackson2QnameSerializer(mock(NamespaceService.class)));
+
+		Assertions.assertEquals("[\"{" + CM_URI + "}name\",\"{" + CM_URI + "}name\"]",
+				objectMapper.writeValueAsString(List.of(NAME, NAME)));
+		Assertions.assertEquals("{\"{" + CM_URI + "}name\":\"{" + CM_URI + "}title\"}",
+				objectMapper.writeValueAsString(Map.of(NAME, TITLE)));
+	}
+
+	@Test
+	public void when_prefixed_expect_prefixedNamesResolvedOnce() throws Exception {
+		NamespaceService namespaceService = mock(NamespaceService.class);
+		when(namespaceService.getPrefixes(CM_URI)).thenReturn(List.of("cm"));
+		when(namespaceService.getPrefixes("custom")).thenReturn(List.of());
+		Jackson2QnameSerializer serializer = new Jackson2QnameSerializer(namespaceService, true);
+		ObjectMapper objectMapper = objectMapper(serializer);
+
+		Map<QName, QName> properties = new LinkedHashMap<>();
+		properties.put(NAME, TITLE);
+		properties.put(TITLE, NAME);
+		properties.put(CUSTOM, NAME);
+		String expected = "{\"cm:name\":\"cm:title\",\"cm:title\":\"cm:name\",\"{custom}value\":\"cm:name\"}";
+		Assertions.assertEquals(expected, objectMapper.writeValueAsString(properties));
+		int resolutions = invocations(namespaceService);
+
+		Assertions.assertEquals(expected, objectMapper.writeValueAsString(properties));
+		Assertions.assertEquals(resolutions, invocations(namespaceService));
+
+		serializer.getDictionaryListener().afterDictionaryInit();
+		Assertions.assertEquals(expected, objectMapper.writeValueAsString(properties));
+		Assertions.assertEquals(2 * resolutions, invocations(namespaceService));
+	}
+
+	private static int invocations(NamespaceService namespaceService) {
+		return Mockito.mockingDetails(namespaceService).getInvocations().size();
+	}
+
+	private ObjectMapper objectMapper(Jackson2QnameSerializer serializer) {
+		SimpleModule module = new SimpleModule();
+		module.addSerializer(QName.class, serializer);
+		module.addKeySerializer(QName.class, serializer.getKeySerializer());
+		return new ObjectMapper().registerModule(module);
+	}
+}
@@ -17,15 +17,29 @@
 package com.gradecak.alfresco.mvc.test.webscript;
 
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.http.Cookie;
 
+import org.alfresco.model.ContentModel;
+import org.alfresco.service.ServiceRegistry;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
 import org.alfresco.service.namespace.NamespaceService;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Assertions;
@@ -39,13 +53,18 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import com.gradecak.alfresco.mvc.rest.config.DefaultAlfrescoMvcServletContextConfiguration;
 import com.gradecak.alfresco.mvc.webscript.DispatcherWebscript;
@@ -65,12 +84,20 @@ public class AlfrescoMvcRestTest {
 	@Autowired
 	private NamespaceService namespaceService;
 
+	@Autowired
+	private ServiceRegistry serviceRegistry;
+
 	MockWebscript mockWebscript;
 
 	@BeforeAll
 	public void beforeAll() throws Exception {
 		when(namespaceService.getPrefixes(anyString())).thenReturn(List.of("uri"));
 		when(namespaceService.getNamespaceURI(anyString())).thenReturn("uri");
+
+		NodeService nodeService = mock(NodeService.class);
+		when(serviceRegistry.getNodeService()).thenReturn(nodeService);
+		when(nodeService.exists(any(NodeRef.class))).thenReturn(true);
+		when(nodeService.getProperty(any(NodeRef.class), eq(ContentModel.PROP_MODIFIED))).thenReturn(new Date(1000));
 		mockWebscript = MockWebscriptBuilder.singleWebscript(webScript);
 	}
 
@@ -97,6 +124,15 @@ public class AlfrescoMvcRestTest {
 		Assertions.assertEquals("abc$def", contentAsString);
 	}
 
+	@Test
+	public void when_alfrescoMvcReceivesRegularExpressionGroupInUrl_expect_ok() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/regexp/abc(def").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+
+		String contentAsString = res.getContentAsString();
+		Assertions.assertEquals("abc(def", contentAsString);
+	}
+
 	@Test
 	public void when_alfrescoMvcReceivesRegularExpressionInUrlDecoded2_expect_ok() throws Exception {
 		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/regexp/abc.de.fe").execute();
@@ -216,6 +252,74 @@ public class AlfrescoMvcRestTest {
 		Assertions.assertEquals(IOUtils.toString(resource.getInputStream(), Charset.defaultCharset()), contentAsString);
 	}
 
+	@Test
+	public void when_contentReaderIsReturned_expect_okAndContentWithContentDataHeaders() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/content").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+
+		ClassPathResource resource = new ClassPathResource(
+				"alfresco/extension/templates/webscripts/alfresco-mvc/mvc.delete.desc.xml");
+		Assertions.assertEquals(IOUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8),
+				res.getContentAsString());
+		Assertions.assertEquals(resource.contentLength(), res.getContentLength());
+		Assertions.assertEquals(MediaType.parseMediaType("text/xml;charset=UTF-8"),
+				MediaType.parseMediaType(res.getContentType()));
+		Assertions.assertEquals("mvc.delete.desc.xml",
+				ContentDisposition.parse(res.getHeader(HttpHeaders.CONTENT_DISPOSITION)).getFilename());
+	}
+
+	@Test
+	public void when_contentRangeIsRequested_expect_partialContent() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withHeaders(ImmutableMap.of(HttpHeaders.RANGE, "bytes=0-9"))
+				.withControllerMapping("test/content").execute();
+		Assertions.assertEquals(HttpStatus.PARTIAL_CONTENT.value(), res.getStatus());
+
+		ClassPathResource resource = new ClassPathResource(
+				"alfresco/extension/templates/webscripts/alfresco-mvc/mvc.delete.desc.xml");
+		String content = IOUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8);
+		Assertions.assertEquals(content.substring(0, 10), res.getContentAsString());
+		Assertions.assertEquals(10, res.getContentLength());
+		Assertions.assertEquals("bytes 0-9/" + resource.contentLength(), res.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	public void when_contentRangesAreRequested_expect_partialContentAsMultipart() throws Exception {
+		MockHttpServletResponse res = mockWebscript
+				.withHeaders(ImmutableMap.of(HttpHeaders.RANGE, "bytes=0-4,10-14"))
+				.withControllerMapping("test/content").execute();
+		Assertions.assertEquals(HttpStatus.PARTIAL_CONTENT.value(), res.getStatus());
+		Assertions.assertTrue(res.getContentType().startsWith("multipart/byteranges"));
+
+		ClassPathResource resource = new ClassPathResource(
+				"alfresco/extension/templates/webscripts/alfresco-mvc/mvc.delete.desc.xml");
+		String content = IOUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8);
+		String body = res.getContentAsString();
+		Assertions.assertTrue(body.contains("Content-Range: bytes 0-4/" + resource.contentLength() + "\r\n\r\n"
+				+ content.substring(0, 5) + "\r\n--"));
+		Assertions.assertTrue(body.contains("Content-Range: bytes 10-14/" + resource.contentLength() + "\r\n\r\n"
+				+ content.substring(10, 15) + "\r\n--"));
+	}
+
+	@Test
+	public void when_contentRangeIsRequestedWithOutdatedIfRange_expect_okAndWholeContent() throws Exception {
+		MockHttpServletResponse res = mockWebscript
+				.withHeaders(ImmutableMap.of(HttpHeaders.RANGE, "bytes=0-9", HttpHeaders.IF_RANGE, "\"outdated\""))
+				.withControllerMapping("test/content").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+
+		ClassPathResource resource = new ClassPathResource(
+				"alfresco/extension/templates/webscripts/alfresco-mvc/mvc.delete.desc.xml");
+		Assertions.assertEquals(resource.contentLength(), res.getContentLength());
+	}
+
+	@Test
+	public void when_unsatisfiableContentRangeIsRequested_expect_rangeNotSatisfiable() throws Exception {
+		MockHttpServletResponse res = mockWebscript
+				.withHeaders(ImmutableMap.of(HttpHeaders.RANGE, "bytes=1000000-"))
+				.withControllerMapping("test/content").execute();
+		Assertions.assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), res.getStatus());
+	}
+
 	@Test
 	public void when_alfrescoMvcSerializationIsUsed_expect_okAndNodrefFullySerialized() throws Exception {
 		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/noderef").execute();
@@ -307,6 +411,339 @@ public class AlfrescoMvcRestTest {
 		Assertions.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), res.getStatus());
 	}
 
-	// TODO add file upload test
+	@Test
+	public void when_callableIsReturnedWithoutAsync_expect_handledIOException() throws Exception {
+		Assertions.assertThrows(IOException.class, () -> {
+			mockWebscript.withParameters(ImmutableMap.of("id", "testId"))
+					.withControllerMapping("test/async/callable").execute();
+		});
+	}
+
+	@Test
+	public void when_callableIsReturned_expect_okAndExecutedByAsyncExecutor() throws Exception {
+		webScript.setAsync(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withParameters(ImmutableMap.of("id", "testId"))
+					.withControllerMapping("test/async/callable").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertTrue(res.getContentAsString().startsWith("testId:alfresco-mvc-async-"));
+		} finally {
+			webScript.setAsync(false);
+		}
+	}
+
+	@Test
+	public void when_completableFutureIsReturned_expect_ok() throws Exception {
+		webScript.setAsync(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withParameters(ImmutableMap.of("id", "testId"))
+					.withControllerMapping("test/async/completableFuture").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertEquals("testId", res.getContentAsString());
+		} finally {
+			webScript.setAsync(false);
+		}
+	}
+
+	@Test
+	public void when_deferredResultIsReturned_expect_ok() throws Exception {
+		webScript.setAsync(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withParameters(ImmutableMap.of("id", "testId"))
+					.withControllerMapping("test/async/deferredResult").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertEquals("testId", res.getContentAsString());
+		} finally {
+			webScript.setAsync(false);
+		}
+	}
+
+	@Test
+	public void when_asyncContextStartsRunnable_expect_executedByAsyncExecutor() throws Exception {
+		webScript.setAsync(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withParameters(ImmutableMap.of("id", "testId"))
+					.withControllerMapping("test/async/start").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertTrue(res.getContentAsString().startsWith("testId:alfresco-mvc-async-"));
+		} finally {
+			webScript.setAsync(false);
+		}
+	}
+
+	@Test
+	public void when_deferredResultTimesOut_expect_serviceUnavailable() throws Exception {
+		webScript.setAsync(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withControllerMapping("test/async/timeout").execute();
+			Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), res.getStatus());
+		} finally {
+			webScript.setAsync(false);
+		}
+	}
+
+	@Test
+	public void when_streamIsReturned_expect_okAndJsonArray() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/stream").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		Assertions.assertEquals("[\"a\",\"b\",\"c\"]", res.getContentAsString());
+	}
+
+	@Test
+	public void when_streamIsReturnedAndNdjsonAccepted_expect_okAndNewlineDelimitedJson() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withHeaders(ImmutableMap.of("Accept", "application/x-ndjson"))
+				.withControllerMapping("test/stream").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		Assertions.assertEquals("application/x-ndjson", res.getContentType());
+		Assertions.assertEquals("\"a\"\n\"b\"\n\"c\"\n", res.getContentAsString());
+	}
+
+	@Test
+	public void when_streamIsReturnedWithAlfrescoResponse_expect_okAndListEntriesEnvelope() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/streamAlfrescoResponse").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		Assertions.assertEquals("{\"list\":{\"entries\":[{\"entry\":\"a\"},{\"entry\":\"b\"},{\"entry\":\"c\"}],"
+				+ "\"pagination\":{\"count\":3,\"hasMoreItems\":false,\"totalItems\":3,\"skipCount\":0,\"maxItems\":3}}}",
+				res.getContentAsString());
+	}
+
+	@Test
+	public void when_noCacheControlAnnotation_expect_dispatcherCacheControl() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withParameters(ImmutableMap.of("id", "testId"))
+				.withControllerMapping("test/get").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		Assertions.assertEquals("no-cache", res.getHeader(HttpHeaders.CACHE_CONTROL));
+	}
+
+	@Test
+	public void when_cacheControlAnnotation_expect_handlerCacheControl() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/cacheControl").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		Assertions.assertEquals("max-age=60, private", res.getHeader(HttpHeaders.CACHE_CONTROL));
+	}
+
+	@Test
+	public void when_etagMatches_expect_notModifiedWithoutBody() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withControllerMapping("test/etag").execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+		String etag = res.getHeader(HttpHeaders.ETAG);
+		Assertions.assertTrue(etag.startsWith("W/\""));
+
+		mockWebscript.newRequest();
+		res = mockWebscript.withHeaders(ImmutableMap.of(HttpHeaders.IF_NONE_MATCH, etag))
+				.withControllerMapping("test/etag").execute();
+		Assertions.assertEquals(HttpStatus.NOT_MODIFIED.value(), res.getStatus());
+		Assertions.assertEquals("", res.getContentAsString());
+	}
+
+	@Test
+	public void when_ifMatchIsMissing_expect_preconditionRequired() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withMethod(HttpMethod.PUT).withControllerMapping("test/ifMatch/abc")
+				.execute();
+		Assertions.assertEquals(HttpStatus.PRECONDITION_REQUIRED.value(), res.getStatus());
+	}
+
+	@Test
+	public void when_ifMatchDoesNotMatch_expect_preconditionFailedWithCurrentETag() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withMethod(HttpMethod.PUT)
+				.withHeaders(ImmutableMap.of(HttpHeaders.IF_MATCH, "\"999\"")).withControllerMapping("test/ifMatch/abc")
+				.execute();
+		Assertions.assertEquals(HttpStatus.PRECONDITION_FAILED.value(), res.getStatus());
+		Assertions.assertEquals("\"1000\"", res.getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	public void when_ifMatchWithoutNodeId_expect_badRequest() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withMethod(HttpMethod.PUT)
+				.withHeaders(ImmutableMap.of(HttpHeaders.IF_MATCH, "\"1000\"")).withControllerMapping("test/ifMatch")
+				.execute();
+		Assertions.assertEquals(HttpStatus.BAD_REQUEST.value(), res.getStatus());
+	}
+
+	@Test
+	public void when_ifMatchMatches_expect_ok() throws Exception {
+		MockHttpServletResponse res = mockWebscript.withMethod(HttpMethod.PUT)
+				.withHeaders(ImmutableMap.of(HttpHeaders.IF_MATCH, "\"1000\"")).withControllerMapping("test/ifMatch/abc")
+				.execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+	}
+
+	@Test
+	public void when_compressionAndLargeResponse_expect_gzipBody() throws Exception {
+		webScript.setCompression(true);
+		try {
+			MockHttpServletResponse res = mockWebscript
+					.withHeaders(ImmutableMap.of(HttpHeaders.ACCEPT_ENCODING, "deflate;q=0.5, gzip"))
+					.withControllerMapping("test/compressible").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertEquals("gzip", res.getHeader(HttpHeaders.CONTENT_ENCODING));
+			Assertions.assertEquals(HttpHeaders.ACCEPT_ENCODING, res.getHeader(HttpHeaders.VARY));
+
+			String json = new String(
+					IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(res.getContentAsByteArray()))),
+					StandardCharsets.UTF_8);
+			Assertions.assertTrue(json.startsWith("[\"compressible\",\"compressible\""));
+			Assertions.assertTrue(res.getContentAsByteArray().length < json.length());
+		} finally {
+			webScript.setCompression(false);
+		}
+	}
+
+	@Test
+	public void when_compressionAndSingleWriteLargerThanMinSize_expect_gzipBody() throws Exception {
+		webScript.setCompression(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withHeaders(ImmutableMap.of(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+					.withControllerMapping("test/compressible/single").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertEquals("gzip", res.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+			String text = new String(
+					IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(res.getContentAsByteArray()))),
+					StandardCharsets.UTF_8);
+			Assertions.assertEquals("compressible".repeat(500), text);
+		} finally {
+			webScript.setCompression(false);
+		}
+	}
+
+	@Test
+	public void when_compressionWithoutMinSize_expect_smallResponseCompressed() throws Exception {
+		int minSize = webScript.getCompressionMinSize();
+		webScript.setCompressionMinSize(0);
+		webScript.setCompression(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withHeaders(ImmutableMap.of(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+					.withParameters(ImmutableMap.of("id", "testId")).withControllerMapping("test/get").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertEquals("gzip", res.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+			String text = new String(
+					IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(res.getContentAsByteArray()))),
+					StandardCharsets.UTF_8);
+			Assertions.assertEquals("testId", text);
+		} finally {
+			webScript.setCompression(false);
+			webScript.setCompressionMinSize(minSize);
+		}
+	}
+
+	@Test
+	public void when_compressionAndWriteAfterClose_expect_ignoredWrite() throws Exception {
+		webScript.setCompression(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withHeaders(ImmutableMap.of(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+					.withControllerMapping("test/compressible/closed").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertEquals("gzip", res.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+			String text = new String(
+					IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(res.getContentAsByteArray()))),
+					StandardCharsets.UTF_8);
+			Assertions.assertEquals("compressible".repeat(500), text);
+		} finally {
+			webScript.setCompression(false);
+		}
+	}
+
+	@Test
+	public void when_compressionAndSmallResponse_expect_identityBody() throws Exception {
+		webScript.setCompression(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withHeaders(ImmutableMap.of(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+					.withParameters(ImmutableMap.of("id", "testId")).withControllerMapping("test/get").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertNull(res.getHeader(HttpHeaders.CONTENT_ENCODING));
+			Assertions.assertEquals("testId", res.getContentAsString());
+		} finally {
+			webScript.setCompression(false);
+		}
+	}
+
+	@Test
+	public void when_compressionNotAccepted_expect_identityBody() throws Exception {
+		webScript.setCompression(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withControllerMapping("test/compressible").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertNull(res.getHeader(HttpHeaders.CONTENT_ENCODING));
+			Assertions.assertTrue(res.getContentAsString().startsWith("[\"compressible\""));
+		} finally {
+			webScript.setCompression(false);
+		}
+	}
+
+	@Test
+	public void when_requestDecompressionAndGzipBody_expect_decompressedBody() throws Exception {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(content)) {
+			gzip.write("{\"id\":\"testId\"}".getBytes(StandardCharsets.UTF_8));
+		}
+
+		webScript.setRequestDecompression(true);
+		try {
+			MockHttpServletResponse res = mockWebscript.withPostRequest().withContent(content.toByteArray())
+					.withHeaders(ImmutableMap.of(HttpHeaders.CONTENT_ENCODING, "gzip"))
+					.withControllerMapping("test/body").execute();
+			Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+			Assertions.assertEquals("testId", res.getHeaderValue("id"));
+		} finally {
+			webScript.setRequestDecompression(false);
+		}
+	}
+
+	@Test
+	public void when_requestDecompressionAndBodyTooLarge_expect_payloadTooLarge() throws Exception {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(content)) {
+			gzip.write(("{\"id\":\"" + "a".repeat(4096) + "\"}").getBytes(StandardCharsets.UTF_8));
+		}
+
+		long maxSize = webScript.getRequestDecompressionMaxSize();
+		webScript.setRequestDecompression(true);
+		webScript.setRequestDecompressionMaxSize(1024);
+		try {
+			MockHttpServletResponse res = mockWebscript.withPostRequest().withContent(content.toByteArray())
+					.withHeaders(ImmutableMap.of(HttpHeaders.CONTENT_ENCODING, "gzip"))
+					.withControllerMapping("test/body").execute();
+			Assertions.assertEquals(HttpStatus.PAYLOAD_TOO_LARGE.value(), res.getStatus());
+		} finally {
+			webScript.setRequestDecompression(false);
+			webScript.setRequestDecompressionMaxSize(maxSize);
+		}
+	}
+
+	@Test
+	public void when_multipartStream_expect_partsWrittenAsTheyArrive() throws Exception {
+		byte[] file = "streamed file content".getBytes(StandardCharsets.UTF_8);
+		String boundary = "alfresco-mvc-boundary";
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		content.write(("--" + boundary + "\r\n" + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+				+ "my title\r\n" + "--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"test.txt\"\r\n"
+				+ "Content-Type: text/plain\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		content.write(file);
+		content.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		MockHttpServletResponse res = mockWebscript.withPostRequest().withContent(content.toByteArray())
+				.withContentType("multipart/form-data; boundary=" + boundary).withControllerMapping("test/upload")
+				.execute();
+		Assertions.assertEquals(HttpStatus.OK.value(), res.getStatus());
+
+		Map<String, Object> result = new ObjectMapper().readValue(res.getContentAsString(),
+				new TypeReference<Map<String, Object>>() {
+				});
+		Assertions.assertEquals("my title", result.get("title"));
+		Assertions.assertEquals("test.txt", result.get("filename"));
+		Assertions.assertEquals(file.length, ((Number) result.get("size")).intValue());
+		Assertions.assertEquals("text/plain", result.get("mimetype"));
+
+		StringBuilder checksum = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("SHA-256").digest(file)) {
+			checksum.append(String.format("%02x", b));
+		}
+		Assertions.assertEquals(checksum.toString(), result.get("checksum"));
+	}
+
 	// TODO add other HTTP methods
 }
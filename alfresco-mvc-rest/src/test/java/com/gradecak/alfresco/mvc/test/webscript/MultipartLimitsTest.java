@@ -0,0 +1,119 @@
+/**
+ * Copyright gradecak.com
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gradecak.alfresco.mvc.test.webscript;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.fileupload.FileUploadBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import com.gradecak.alfresco.mvc.webscript.DispatcherWebscript;
+import com.gradecak.alfresco.mvc.webscript.mock.MockWebscript;
+import com.gradecak.alfresco.mvc.webscript.mock.MockWebscriptBuilder;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = { "/test-webscriptdispatcher-annotation-enable-context.xml" })
+@TestPropertySource(properties = { "mvc.rest.multipart.maxPartSize=16", "mvc.rest.multipart.maxSize=1024" })
+@WebAppConfiguration
+@TestInstance(Lifecycle.PER_CLASS)
+public class MultipartLimitsTest {
+
+	private static final String BOUNDARY = "alfresco-mvc-boundary";
+
+	@Autowired
+	private DispatcherWebscript webScript;
+
+	MockWebscript mockWebscript;
+
+	@BeforeAll
+	public void beforeAll() throws Exception {
+		mockWebscript = MockWebscriptBuilder.singleWebscript(webScript);
+	}
+
+	@BeforeEach
+	public void before() throws Exception {
+		mockWebscript.newRequest();
+	}
+
+	@Test
+	public void when_partExceedsMaxPartSize_expect_maxUploadSizeExceeded() throws Exception {
+		byte[] content = multipart("a".repeat(64));
+
+		MaxUploadSizeExceededException e = upload(content);
+		Assertions.assertEquals(16, e.getMaxUploadSize());
+		Assertions.assertTrue(e.getCause() instanceof FileUploadBase.FileSizeLimitExceededException);
+	}
+
+	@Test
+	public void when_contentLengthExceedsMaxSize_expect_maxUploadSizeExceededBeforeReading() throws Exception {
+		byte[] content = multipart("a".repeat(2048));
+
+		MaxUploadSizeExceededException e = upload(content);
+		Assertions.assertEquals(1024, e.getMaxUploadSize());
+		Assertions.assertTrue(e.getCause() instanceof FileUploadBase.SizeLimitExceededException);
+		// the whole request size is known only from the Content-Length
+		Assertions.assertEquals(content.length,
+				((FileUploadBase.SizeLimitExceededException) e.getCause()).getActualSize());
+	}
+
+	@Test
+	public void when_partWithinLimits_expect_ok() throws Exception {
+		int status = mockWebscript.withPostRequest().withContent(multipart("small"))
+				.withContentType("multipart/form-data; boundary=" + BOUNDARY).withControllerMapping("test/upload")
+				.execute().getStatus();
+		Assertions.assertEquals(HttpStatus.OK.value(), status);
+	}
+
+	private MaxUploadSizeExceededException upload(byte[] content) {
+		IOException e = Assertions.assertThrows(IOException.class, () -> {
+			mockWebscript.withPostRequest().withContent(content)
+					.withContentType("multipart/form-data; boundary=" + BOUNDARY).withControllerMapping("test/upload")
+					.execute();
+		});
+
+		Throwable cause = e;
+		while (cause != null && !(cause instanceof MaxUploadSizeExceededException)) {
+			cause = cause.getCause();
+		}
+		Assertions.assertNotNull(cause, "No MaxUploadSizeExceededException in " + e);
+		return (MaxUploadSizeExceededException) cause;
+	}
+
+	private static byte[] multipart(String file) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		content.write(("--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"test.txt\"\r\n"
+				+ "Content-Type: text/plain\r\n\r\n" + file + "\r\n--" + BOUNDARY + "--\r\n")
+						.getBytes(StandardCharsets.UTF_8));
+		return content.toByteArray();
+	}
+}
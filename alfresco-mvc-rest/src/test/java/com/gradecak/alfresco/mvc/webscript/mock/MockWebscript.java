@@ -39,6 +39,7 @@ public class MockWebscript {
 	private HttpMethod method;
 	private Map<String, String> parameters;
 	private Map<String, String> body;
+	private byte[] content;
 	private String webscriptUrl;
 	private String controllerMapping;
 	private String contentType;
@@ -63,6 +64,7 @@ public class MockWebscript {
 		method = HttpMethod.GET;
 		parameters = null;
 		body = null;
+		content = null;
 		webscriptUrl = "/service/mvc/";
 		contentType = "application/json";
 		controllerMapping = null;
@@ -106,6 +108,11 @@ public class MockWebscript {
 		return this;
 	}
 
+	public MockWebscript withContent(final byte[] content) {
+		this.content = content;
+		return this;
+	}
+
 	public MockWebscript withControllerMapping(final String controllerMapping) {
 		this.controllerMapping = controllerMapping;
 		return this;
@@ -137,19 +144,19 @@ public class MockWebscript {
 	}
 
 	public MockHttpServletResponse execute() throws IOException {
-		return doRequest(webScript, container, description, method.name(), parameters, body, webscriptUrl,
+		return doRequest(webScript, container, description, method.name(), parameters, body, content, webscriptUrl,
 				controllerMapping, cookies, headers, contentType);
 	}
 
 	private MockHttpServletResponse doRequest(AbstractWebScript webScript, Container container, Description description,
-			String method, Map<String, String> parameters, Map<String, String> body, String webscriptUrl,
-			String controllerMapping, Cookie[] cookies, Map<String, Object> headers, String contentType)
-			throws IOException {
+			String method, Map<String, String> parameters, Map<String, String> body, byte[] content,
+			String webscriptUrl, String controllerMapping, Cookie[] cookies, Map<String, Object> headers,
+			String contentType) throws IOException {
 		webScript.init(container, description);
 
 		MockWebScriptResponse mockedResponse = MockWebScriptResponse.createMockWebScriptResponse();
 		webScript.execute(MockWebscriptServletRequest.createMockWebscriptServletRequest(webScript, method, webscriptUrl,
-				controllerMapping, parameters, body, cookies, headers, contentType), mockedResponse);
+				controllerMapping, parameters, body, content, cookies, headers, contentType), mockedResponse);
 
 		return mockedResponse.getMockHttpServletResponse();
 	}
@@ -47,6 +47,14 @@ public class MockWebscriptServletRequest extends WebScriptServletRequest {
 			String method, String webscriptUrl, String controllerMapping, final Map<String, String> parameters,
 			final Map<String, String> body, final Cookie[] cookies, final Map<String, Object> headers,
 			final String contentType) throws IOException {
+		return createMockWebscriptServletRequest(webScript, method, webscriptUrl, controllerMapping, parameters, body,
+				null, cookies, headers, contentType);
+	}
+
+	static public MockWebscriptServletRequest createMockWebscriptServletRequest(AbstractWebScript webScript,
+			String method, String webscriptUrl, String controllerMapping, final Map<String, String> parameters,
+			final Map<String, String> body, final byte[] content, final Cookie[] cookies,
+			final Map<String, Object> headers, final String contentType) throws IOException {
 		Match match = new Match(null, ImmutableMap.of("", ""), webscriptUrl, webScript);
 		MockHttpServletRequest mockHttpServletRequest = new MockHttpServletRequest(method,
 				"http://localhost/alfresco" + webscriptUrl + controllerMapping);
@@ -67,6 +75,8 @@ public class MockWebscriptServletRequest extends WebScriptServletRequest {
 
 		if (HttpMethod.POST.name().equals(method) && body != null) {
 			mockHttpServletRequest.setContent(new ObjectMapper().writeValueAsString(body).getBytes());
+		} else if (content != null) {
+			mockHttpServletRequest.setContent(content);
 		}
 
 		MockWebscriptServletRequest webscriptServletRequest = new MockWebscriptServletRequest(mock(Runtime.class),